@@ -0,0 +1,125 @@
+package pl.juraszek.sociabletests.application.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.lang.NonNull;
+import pl.juraszek.sociabletests.domain.client.Client;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.function.LongSupplier;
+
+/**
+ * Admits order placements in front of the order services. Every client gets its own
+ * {@link TokenBucket} sized by its subscription tier, and a global concurrency limit sheds
+ * requests that would otherwise queue up on saturated threads. Rejected requests fail fast
+ * with {@link OrderThrottledException}.
+ * <p>
+ * Admission never calls the client service itself. A client starts in the standard tier and is
+ * moved to its own tier once the order services fetched it, see {@link TierTrackingClientProvider}.
+ */
+public class AdmissionControl {
+
+   private static final Permit NO_PERMIT = () -> {
+   };
+   private static final Duration CONCURRENCY_RETRY_AFTER = Duration.ofSeconds(1);
+
+   private final AdmissionProperties properties;
+   private final LongSupplier nanoTime;
+   private final Cache<String, ClientBucket> buckets;
+   private final Semaphore inFlight;
+   private final Counter rateThrottled;
+   private final Counter concurrencyThrottled;
+
+   public AdmissionControl(AdmissionProperties properties, MeterRegistry registry) {
+      this(properties, registry, System::nanoTime);
+   }
+
+   AdmissionControl(AdmissionProperties properties, MeterRegistry registry, LongSupplier nanoTime) {
+      this.properties = properties;
+      this.nanoTime = nanoTime;
+      this.buckets = Caffeine.newBuilder()
+            .expireAfterAccess(properties.idleClientTtl())
+            .maximumSize(properties.maximumClients())
+            .build();
+      this.inFlight = new Semaphore(properties.maxConcurrent());
+      this.rateThrottled = throttledCounter(registry, "rate");
+      this.concurrencyThrottled = throttledCounter(registry, "concurrency");
+      Gauge.builder("order.admission.in_flight", inFlight, semaphore -> properties.maxConcurrent() - semaphore.availablePermits())
+            .register(registry);
+   }
+
+   /**
+    * Admits a placement for the given client. The returned permit has to be closed once the
+    * placement completes.
+    */
+   public Permit admit(@NonNull String clientId) {
+      charge(clientId);
+      return admit();
+   }
+
+   /**
+    * Charges the client's rate limit for a single order, e.g. one entry of a batch admitted as a
+    * whole with {@link #admit()}.
+    *
+    * @throws OrderThrottledException when the client is over its limit
+    */
+   public void charge(@NonNull String clientId) {
+      if (!properties.enabled()) {
+         return;
+      }
+      long wait = buckets.get(clientId, id -> bucketFor(properties.standard())).bucket().tryAcquire(nanoTime.getAsLong());
+      if (wait > 0) {
+         rateThrottled.increment();
+         throw new OrderThrottledException(String.format("Rate limit exceeded for client %s", clientId), Duration.ofNanos(wait));
+      }
+   }
+
+   /**
+    * Admits a placement against the global concurrency limit only.
+    */
+   public Permit admit() {
+      if (!properties.enabled()) {
+         return NO_PERMIT;
+      }
+      if (!inFlight.tryAcquire()) {
+         concurrencyThrottled.increment();
+         throw new OrderThrottledException("Too many orders in progress", CONCURRENCY_RETRY_AFTER);
+      }
+      return inFlight::release;
+   }
+
+   /**
+    * Moves the client to the bucket of its subscription tier, the bucket is kept when the tier
+    * did not change.
+    */
+   public void recordClient(@NonNull Client client) {
+      if (!properties.enabled()) {
+         return;
+      }
+      AdmissionProperties.Tier tier = client.hasPremiumSubscription() ? properties.premium() : properties.standard();
+      buckets.asMap().compute(client.name(),
+            (name, current) -> current != null && current.tier().equals(tier) ? current : bucketFor(tier));
+   }
+
+   private ClientBucket bucketFor(AdmissionProperties.Tier tier) {
+      return new ClientBucket(tier, new TokenBucket(tier.permitsPerSecond(), tier.burst(), nanoTime.getAsLong()));
+   }
+
+   private static Counter throttledCounter(MeterRegistry registry, String reason) {
+      return Counter.builder("order.admission.throttled")
+            .tag("reason", reason)
+            .register(registry);
+   }
+
+   private record ClientBucket(AdmissionProperties.Tier tier, TokenBucket bucket) {
+   }
+
+   public interface Permit extends AutoCloseable {
+      @Override
+      void close();
+   }
+}
@@ -0,0 +1,29 @@
+package pl.juraszek.sociabletests.application.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * {@code maxConcurrent} has to stay well below {@code server.tomcat.threads.max}. Requests above
+ * the limit are shed by the worker that accepted them, which is only possible while workers are
+ * left, and the remaining workers keep serving reads and health checks.
+ */
+@ConfigurationProperties(prefix = "admission")
+public record AdmissionProperties(@DefaultValue("false") boolean enabled,
+                                  Tier standard,
+                                  Tier premium,
+                                  @DefaultValue("64") int maxConcurrent,
+                                  @DefaultValue("100000") long maximumClients,
+                                  @DefaultValue("10m") Duration idleClientTtl) {
+
+   public AdmissionProperties {
+      standard = standard == null ? new Tier(10, 20) : standard;
+      premium = premium == null ? new Tier(50, 100) : premium;
+   }
+
+   public record Tier(@DefaultValue("10") double permitsPerSecond,
+                      @DefaultValue("20") int burst) {
+   }
+}
@@ -0,0 +1,15 @@
+package pl.juraszek.sociabletests.application.admission;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class OrderThrottledException extends RuntimeException {
+   private final Duration retryAfter;
+
+   public OrderThrottledException(String message, Duration retryAfter) {
+      super(message);
+      this.retryAfter = retryAfter;
+   }
+}
@@ -0,0 +1,26 @@
+package pl.juraszek.sociabletests.application.admission;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.NonNull;
+import pl.juraszek.sociabletests.domain.client.Client;
+import pl.juraszek.sociabletests.domain.client.ClientProvider;
+
+import java.util.Optional;
+
+/**
+ * Reports every client fetched by the order services to {@link AdmissionControl}, so rate limits
+ * follow the subscription tier without an extra call to the client service.
+ */
+@RequiredArgsConstructor
+public class TierTrackingClientProvider implements ClientProvider {
+
+   private final ClientProvider delegate;
+   private final AdmissionControl admissionControl;
+
+   @Override
+   public @NonNull Optional<Client> fetchClient(@NonNull String name) {
+      Optional<Client> client = delegate.fetchClient(name);
+      client.ifPresent(admissionControl::recordClient);
+      return client;
+   }
+}
@@ -0,0 +1,37 @@
+package pl.juraszek.sociabletests.application.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket implemented as the generic cell rate algorithm: the whole state is the
+ * theoretical arrival time of the next request, updated with a single CAS, so concurrent
+ * requests of one client never block each other.
+ */
+class TokenBucket {
+
+   private final long emissionIntervalNanos;
+   private final long toleranceNanos;
+   private final AtomicLong theoreticalArrival;
+
+   TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+      this.emissionIntervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+      this.toleranceNanos = emissionIntervalNanos * (Math.max(burst, 1) - 1);
+      this.theoreticalArrival = new AtomicLong(nowNanos);
+   }
+
+   /**
+    * @return 0 when the request is admitted, otherwise nanoseconds to wait before the next permit
+    */
+   long tryAcquire(long nowNanos) {
+      while (true) {
+         long arrival = theoreticalArrival.get();
+         long wait = arrival - nowNanos - toleranceNanos;
+         if (wait > 0) {
+            return wait;
+         }
+         if (theoreticalArrival.compareAndSet(arrival, Math.max(arrival, nowNanos) + emissionIntervalNanos)) {
+            return 0;
+         }
+      }
+   }
+}
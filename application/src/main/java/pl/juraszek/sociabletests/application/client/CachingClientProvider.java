@@ -0,0 +1,62 @@
+package pl.juraszek.sociabletests.application.client;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.lang.NonNull;
+import pl.juraszek.sociabletests.domain.client.Client;
+import pl.juraszek.sociabletests.domain.client.ClientProvider;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Caches clients fetched by the decorated provider. Unknown clients are cached as well (with a
+ * shorter ttl), and concurrent misses for the same client wait for a single fetch.
+ */
+public class CachingClientProvider implements ClientProvider {
+
+   private final LoadingCache<String, Optional<Client>> clients;
+
+   public CachingClientProvider(@NonNull ClientProvider delegate, @NonNull ClientCacheProperties properties) {
+      this.clients = Caffeine.newBuilder()
+            .maximumSize(properties.maximumSize())
+            .expireAfter(new ClientExpiry(properties.ttl(), properties.negativeTtl()))
+            .recordStats()
+            .build(delegate::fetchClient);
+   }
+
+   @Override
+   public @NonNull Optional<Client> fetchClient(@NonNull String name) {
+      return clients.get(name);
+   }
+
+   public CacheStats stats() {
+      return clients.stats();
+   }
+
+   public void bindTo(MeterRegistry registry) {
+      CaffeineCacheMetrics.monitor(registry, clients, "clients");
+   }
+
+   private record ClientExpiry(Duration ttl, Duration negativeTtl) implements Expiry<String, Optional<Client>> {
+
+      @Override
+      public long expireAfterCreate(String name, Optional<Client> client, long currentTime) {
+         return client.isPresent() ? ttl.toNanos() : negativeTtl.toNanos();
+      }
+
+      @Override
+      public long expireAfterUpdate(String name, Optional<Client> client, long currentTime, long currentDuration) {
+         return expireAfterCreate(name, client, currentTime);
+      }
+
+      @Override
+      public long expireAfterRead(String name, Optional<Client> client, long currentTime, long currentDuration) {
+         return currentDuration;
+      }
+   }
+}
@@ -0,0 +1,13 @@
+package pl.juraszek.sociabletests.application.client;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "client-cache")
+public record ClientCacheProperties(@DefaultValue("false") boolean enabled,
+                                    @DefaultValue("5m") Duration ttl,
+                                    @DefaultValue("30s") Duration negativeTtl,
+                                    @DefaultValue("10000") long maximumSize) {
+}
@@ -0,0 +1,26 @@
+package pl.juraszek.sociabletests.application.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.juraszek.sociabletests.application.rules.AccessRuleCompiler;
+import pl.juraszek.sociabletests.application.rules.AccessRules;
+import pl.juraszek.sociabletests.application.rules.AccessRulesProperties;
+import pl.juraszek.sociabletests.domain.order.access.OrderAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalog;
+
+import java.util.List;
+
+@ConditionalOnProperty(prefix = "order-access.rules", name = "path")
+@Configuration
+@EnableConfigurationProperties(AccessRulesProperties.class)
+public class AccessRulesConfiguration {
+
+   @Bean
+   public AccessRules accessRules(AccessRulesProperties properties, ProductCatalog productCatalog,
+                                  OrderAccessPolicy orderAccessPolicy, List<ProductAccessPolicy> productPolicies) {
+      return new AccessRules(properties, new AccessRuleCompiler(productCatalog), orderAccessPolicy, productPolicies);
+   }
+}
@@ -0,0 +1,36 @@
+package pl.juraszek.sociabletests.application.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.juraszek.sociabletests.application.admission.AdmissionControl;
+import pl.juraszek.sociabletests.application.admission.AdmissionProperties;
+import pl.juraszek.sociabletests.application.admission.TierTrackingClientProvider;
+import pl.juraszek.sociabletests.domain.client.ClientProvider;
+
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionConfiguration {
+
+   @Bean
+   public AdmissionControl admissionControl(AdmissionProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+      return new AdmissionControl(properties, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+   }
+
+   @Bean
+   public static BeanPostProcessor tierTrackingClientProviderPostProcessor(ObjectProvider<AdmissionControl> admissionControl) {
+      return new BeanPostProcessor() {
+         @Override
+         public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof ClientProvider clientProvider) {
+               return new TierTrackingClientProvider(clientProvider, admissionControl.getObject());
+            }
+            return bean;
+         }
+      };
+   }
+}
@@ -0,0 +1,36 @@
+package pl.juraszek.sociabletests.application.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.juraszek.sociabletests.application.service.AsyncOrderProperties;
+import pl.juraszek.sociabletests.application.service.AsyncOrderService;
+import pl.juraszek.sociabletests.application.service.OrderService;
+import pl.juraszek.sociabletests.application.service.PortBulkhead;
+import pl.juraszek.sociabletests.domain.client.ClientProvider;
+import pl.juraszek.sociabletests.domain.order.OrderRepository;
+
+@Configuration
+@EnableConfigurationProperties(AsyncOrderProperties.class)
+public class AsyncOrderConfiguration {
+
+   @Bean
+   public PortBulkhead clientBulkhead(AsyncOrderProperties properties) {
+      return new PortBulkhead("client-provider", properties.client());
+   }
+
+   /**
+    * A timed out save may still commit, so it is left running.
+    */
+   @Bean
+   public PortBulkhead repositoryBulkhead(AsyncOrderProperties properties) {
+      return new PortBulkhead("order-repository", properties.repository(), false);
+   }
+
+   @Bean
+   public AsyncOrderService asyncOrderService(ClientProvider clientProvider, OrderService orderService,
+                                              OrderRepository orderRepository, AsyncOrderProperties properties) {
+      return new AsyncOrderService(clientProvider, orderService, orderRepository,
+            clientBulkhead(properties), repositoryBulkhead(properties));
+   }
+}
@@ -0,0 +1,34 @@
+package pl.juraszek.sociabletests.application.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.juraszek.sociabletests.application.client.CachingClientProvider;
+import pl.juraszek.sociabletests.application.client.ClientCacheProperties;
+import pl.juraszek.sociabletests.domain.client.ClientProvider;
+
+@ConditionalOnProperty(prefix = "client-cache", name = "enabled", havingValue = "true")
+@Configuration
+@EnableConfigurationProperties(ClientCacheProperties.class)
+public class ClientCacheConfiguration {
+
+   @Bean
+   public static BeanPostProcessor cachingClientProviderPostProcessor(ObjectProvider<ClientCacheProperties> properties,
+                                                                      ObjectProvider<MeterRegistry> meterRegistry) {
+      return new BeanPostProcessor() {
+         @Override
+         public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof ClientProvider clientProvider) {
+               CachingClientProvider cachingClientProvider = new CachingClientProvider(clientProvider, properties.getObject());
+               meterRegistry.ifAvailable(cachingClientProvider::bindTo);
+               return cachingClientProvider;
+            }
+            return bean;
+         }
+      };
+   }
+}
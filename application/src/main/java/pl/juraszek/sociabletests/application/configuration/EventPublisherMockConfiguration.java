@@ -0,0 +1,17 @@
+package pl.juraszek.sociabletests.application.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import pl.juraszek.sociabletests.domain.order.event.OrderEventPublisher;
+import pl.juraszek.sociabletests.domain.order.event.OrderEventPublisherStub;
+
+@Profile("mock-order-event-publisher")
+@Configuration
+public class EventPublisherMockConfiguration {
+
+   @Bean
+   public OrderEventPublisher orderEventPublisher() {
+      return new OrderEventPublisherStub();
+   }
+}
@@ -0,0 +1,20 @@
+package pl.juraszek.sociabletests.application.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import pl.juraszek.sociabletests.application.idempotency.IdempotencyProperties;
+import pl.juraszek.sociabletests.application.idempotency.InMemoryIdempotencyKeyStore;
+import pl.juraszek.sociabletests.domain.order.IdempotencyKeyStore;
+
+@Profile("!file-idempotency-store")
+@Configuration
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyConfiguration {
+
+   @Bean
+   public IdempotencyKeyStore idempotencyKeyStore(IdempotencyProperties properties) {
+      return new InMemoryIdempotencyKeyStore(properties);
+   }
+}
@@ -0,0 +1,26 @@
+package pl.juraszek.sociabletests.application.configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.juraszek.sociabletests.application.metrics.BoundedTagValues;
+import pl.juraszek.sociabletests.application.metrics.MeteredPortsPostProcessor;
+
+@Configuration
+public class MetricsConfiguration {
+
+   @Bean
+   public static MeteredPortsPostProcessor meteredPortsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                     @Value("${order-metrics.max-product-tags:100}") int maxProductTags) {
+      return new MeteredPortsPostProcessor(meterRegistry, new BoundedTagValues(maxProductTags));
+   }
+
+   @Bean
+   public TimedAspect timedAspect(ObjectProvider<MeterRegistry> meterRegistry) {
+      return new TimedAspect(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+   }
+}
@@ -0,0 +1,55 @@
+package pl.juraszek.sociabletests.application.configuration;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.juraszek.sociabletests.application.service.OrderService;
+import pl.juraszek.sociabletests.application.tracing.ObservedClientProvider;
+import pl.juraszek.sociabletests.application.tracing.ObservedOrderRepository;
+import pl.juraszek.sociabletests.application.tracing.OrderTracingProperties;
+import pl.juraszek.sociabletests.application.tracing.SlowOrderSampler;
+import pl.juraszek.sociabletests.domain.client.ClientProvider;
+import pl.juraszek.sociabletests.domain.order.OrderRepository;
+
+@ConditionalOnProperty(prefix = "order-tracing", name = "enabled", havingValue = "true")
+@Configuration
+@EnableConfigurationProperties(OrderTracingProperties.class)
+public class OrderTracingConfiguration {
+
+   @Bean
+   public static BeanPostProcessor orderTracingPostProcessor(ObjectProvider<ObservationRegistry> observationRegistry) {
+      return new BeanPostProcessor() {
+         @Override
+         public Object postProcessBeforeInitialization(Object bean, String beanName) {
+            if (bean instanceof OrderService orderService) {
+               orderService.setObservationRegistry(registry());
+            }
+            return bean;
+         }
+
+         @Override
+         public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof ClientProvider clientProvider) {
+               return new ObservedClientProvider(clientProvider, registry());
+            }
+            if (bean instanceof OrderRepository orderRepository) {
+               return new ObservedOrderRepository(orderRepository, registry());
+            }
+            return bean;
+         }
+
+         private ObservationRegistry registry() {
+            return observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP);
+         }
+      };
+   }
+
+   @Bean
+   public SlowOrderSampler slowOrderSampler(OrderTracingProperties properties) {
+      return new SlowOrderSampler(properties.slowThreshold());
+   }
+}
@@ -0,0 +1,17 @@
+package pl.juraszek.sociabletests.application.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalog;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalogStub;
+
+@Profile("mock-product-catalog")
+@Configuration
+public class ProductCatalogMockConfiguration {
+
+   @Bean
+   public ProductCatalog productCatalog() {
+      return new ProductCatalogStub();
+   }
+}
@@ -1,23 +1,39 @@
 package pl.juraszek.sociabletests.application.configuration;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import pl.juraszek.sociabletests.domain.order.access.OrderAccessPolicy;
 import pl.juraszek.sociabletests.domain.order.access.PremiumProductPolicy;
 import pl.juraszek.sociabletests.domain.order.access.ProductAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.access.VerdictCache;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalog;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 @Configuration
 public class ProductConfiguration {
 
    @Bean
-   public OrderAccessPolicy orderAccessPolicy(List<ProductAccessPolicy> productPolicies) {
-      return new OrderAccessPolicy(productPolicies);
+   public OrderAccessPolicy orderAccessPolicy(List<ProductAccessPolicy> productPolicies,
+                                              @Value("${order-access.fail-fast:false}") boolean failFast,
+                                              ForkJoinPool orderAccessPool,
+                                              @Value("${order-access.parallel-threshold:2048}") int parallelThreshold,
+                                              @Value("${order-access.verdict-cache.maximum-size:10000}") int verdictCacheSize,
+                                              @Value("${order-access.verdict-cache.ttl:1m}") Duration verdictCacheTtl) {
+      VerdictCache verdictCache = verdictCacheSize > 0 ? new VerdictCache(verdictCacheSize, verdictCacheTtl) : null;
+      return new OrderAccessPolicy(productPolicies, failFast, orderAccessPool, parallelThreshold, verdictCache);
+   }
+
+   @Bean(destroyMethod = "shutdown")
+   public ForkJoinPool orderAccessPool(@Value("${order-access.parallelism:0}") int parallelism) {
+      return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
    }
 
    @Bean
-   public PremiumProductPolicy agePolicy() {
-      return new PremiumProductPolicy();
+   public PremiumProductPolicy agePolicy(ProductCatalog productCatalog) {
+      return new PremiumProductPolicy(productCatalog);
    }
 }
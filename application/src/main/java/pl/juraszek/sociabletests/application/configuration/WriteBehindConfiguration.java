@@ -0,0 +1,34 @@
+package pl.juraszek.sociabletests.application.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.juraszek.sociabletests.application.repository.WriteBehindOrderRepository;
+import pl.juraszek.sociabletests.application.repository.WriteBehindProperties;
+import pl.juraszek.sociabletests.domain.order.OrderRepository;
+
+@ConditionalOnProperty(prefix = "order-repository.write-behind", name = "enabled", havingValue = "true")
+@Configuration
+@EnableConfigurationProperties(WriteBehindProperties.class)
+public class WriteBehindConfiguration {
+
+   @Bean
+   public static BeanPostProcessor writeBehindOrderRepositoryPostProcessor(ObjectProvider<WriteBehindProperties> properties,
+                                                                           ObjectProvider<MeterRegistry> meterRegistry) {
+      return new BeanPostProcessor() {
+         @Override
+         public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof OrderRepository orderRepository) {
+               return new WriteBehindOrderRepository(orderRepository, properties.getObject(),
+                     meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+            }
+            return bean;
+         }
+      };
+   }
+}
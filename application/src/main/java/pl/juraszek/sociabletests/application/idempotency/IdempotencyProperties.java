@@ -0,0 +1,11 @@
+package pl.juraszek.sociabletests.application.idempotency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "idempotency")
+public record IdempotencyProperties(@DefaultValue("24h") Duration ttl,
+                                    @DefaultValue("100000") long maximumSize) {
+}
@@ -0,0 +1,30 @@
+package pl.juraszek.sociabletests.application.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.lang.NonNull;
+import pl.juraszek.sociabletests.domain.order.IdempotencyKeyStore;
+
+import java.util.Optional;
+
+public class InMemoryIdempotencyKeyStore implements IdempotencyKeyStore {
+
+   private final Cache<String, Placement> placements;
+
+   public InMemoryIdempotencyKeyStore(IdempotencyProperties properties) {
+      this.placements = Caffeine.newBuilder()
+            .expireAfterWrite(properties.ttl())
+            .maximumSize(properties.maximumSize())
+            .build();
+   }
+
+   @Override
+   public @NonNull Optional<Placement> find(@NonNull String key) {
+      return Optional.ofNullable(placements.getIfPresent(key));
+   }
+
+   @Override
+   public void put(@NonNull String key, @NonNull Placement placement) {
+      placements.put(key, placement);
+   }
+}
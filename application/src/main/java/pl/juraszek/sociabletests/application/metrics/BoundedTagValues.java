@@ -0,0 +1,27 @@
+package pl.juraszek.sociabletests.application.metrics;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps tag cardinality bounded: the first {@code limit} distinct values are used as they are,
+ * every later value is reported as {@value #OTHER}.
+ */
+public class BoundedTagValues {
+
+   static final String OTHER = "other";
+
+   private final int limit;
+   private final Set<String> values = ConcurrentHashMap.newKeySet();
+
+   public BoundedTagValues(int limit) {
+      this.limit = limit;
+   }
+
+   public String of(String value) {
+      if (values.contains(value) || (values.size() < limit && values.add(value))) {
+         return value;
+      }
+      return OTHER;
+   }
+}
@@ -0,0 +1,34 @@
+package pl.juraszek.sociabletests.application.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.lang.NonNull;
+import pl.juraszek.sociabletests.domain.client.Client;
+import pl.juraszek.sociabletests.domain.client.ClientProvider;
+
+import java.util.Optional;
+
+public class MeteredClientProvider implements ClientProvider {
+
+   private final ClientProvider delegate;
+   private final Timer fetchTimer;
+   private final Counter notFoundCounter;
+
+   public MeteredClientProvider(ClientProvider delegate, MeterRegistry registry) {
+      this.delegate = delegate;
+      this.fetchTimer = Timer.builder("client.provider.fetch")
+            .publishPercentileHistogram()
+            .register(registry);
+      this.notFoundCounter = Counter.builder("client.provider.not.found").register(registry);
+   }
+
+   @Override
+   public @NonNull Optional<Client> fetchClient(@NonNull String name) {
+      Optional<Client> client = fetchTimer.record(() -> delegate.fetchClient(name));
+      if (client.isEmpty()) {
+         notFoundCounter.increment();
+      }
+      return client;
+   }
+}
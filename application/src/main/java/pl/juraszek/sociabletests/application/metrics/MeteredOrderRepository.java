@@ -0,0 +1,65 @@
+package pl.juraszek.sociabletests.application.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.OrderQuery;
+import pl.juraszek.sociabletests.domain.order.OrderRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class MeteredOrderRepository implements OrderRepository, AutoCloseable {
+
+   private final OrderRepository delegate;
+   private final Timer saveTimer;
+   private final Timer saveAllTimer;
+   private final Timer findByIdTimer;
+   private final DistributionSummary batchSize;
+
+   public MeteredOrderRepository(OrderRepository delegate, MeterRegistry registry) {
+      this.delegate = delegate;
+      this.saveTimer = Timer.builder("order.repository.save")
+            .publishPercentileHistogram()
+            .register(registry);
+      this.saveAllTimer = Timer.builder("order.repository.save.all")
+            .publishPercentileHistogram()
+            .register(registry);
+      this.findByIdTimer = Timer.builder("order.repository.find.by.id")
+            .publishPercentileHistogram()
+            .register(registry);
+      this.batchSize = DistributionSummary.builder("order.repository.save.all.size")
+            .publishPercentileHistogram()
+            .register(registry);
+   }
+
+   @Override
+   public Order save(Order order) {
+      return saveTimer.record(() -> delegate.save(order));
+   }
+
+   @Override
+   public List<Order> saveAll(List<Order> orders) {
+      batchSize.record(orders.size());
+      return saveAllTimer.record(() -> delegate.saveAll(orders));
+   }
+
+   @Override
+   public Optional<Order> findById(String id) {
+      return findByIdTimer.record(() -> delegate.findById(id));
+   }
+
+   @Override
+   public Stream<Order> find(OrderQuery query) {
+      return delegate.find(query);
+   }
+
+   @Override
+   public void close() throws Exception {
+      if (delegate instanceof AutoCloseable closeable) {
+         closeable.close();
+      }
+   }
+}
@@ -0,0 +1,45 @@
+package pl.juraszek.sociabletests.application.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import pl.juraszek.sociabletests.domain.client.ClientProvider;
+import pl.juraszek.sociabletests.domain.order.OrderRepository;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessPolicy;
+
+/**
+ * Wraps port beans with metered decorators when a {@link MeterRegistry} is available.
+ * It is ordered, so it runs before other unordered decorating post processors and
+ * measures the calls that actually reach the adapters.
+ */
+@RequiredArgsConstructor
+public class MeteredPortsPostProcessor implements BeanPostProcessor, Ordered {
+
+   private final ObjectProvider<MeterRegistry> meterRegistry;
+   private final BoundedTagValues productTags;
+
+   @Override
+   public Object postProcessAfterInitialization(Object bean, String beanName) {
+      if (!(bean instanceof ClientProvider || bean instanceof OrderRepository || bean instanceof ProductAccessPolicy)) {
+         return bean;
+      }
+      MeterRegistry registry = meterRegistry.getIfAvailable();
+      if (registry == null) {
+         return bean;
+      }
+      if (bean instanceof ClientProvider clientProvider) {
+         return new MeteredClientProvider(clientProvider, registry);
+      }
+      if (bean instanceof OrderRepository orderRepository) {
+         return new MeteredOrderRepository(orderRepository, registry);
+      }
+      return new MeteredProductAccessPolicy((ProductAccessPolicy) bean, registry, productTags);
+   }
+
+   @Override
+   public int getOrder() {
+      return 0;
+   }
+}
@@ -0,0 +1,49 @@
+package pl.juraszek.sociabletests.application.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.vavr.control.Either;
+import pl.juraszek.sociabletests.domain.client.Client;
+import pl.juraszek.sociabletests.domain.order.access.CacheableProductAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessException;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+/**
+ * Passes cache keys of a {@link CacheableProductAccessPolicy} delegate through, so the timer
+ * measures only checks that miss the verdict cache.
+ */
+public class MeteredProductAccessPolicy implements CacheableProductAccessPolicy {
+
+   private final ProductAccessPolicy delegate;
+   private final MeterRegistry registry;
+   private final BoundedTagValues productTags;
+   private final String policyName;
+   private final Timer checkTimer;
+
+   public MeteredProductAccessPolicy(ProductAccessPolicy delegate, MeterRegistry registry, BoundedTagValues productTags) {
+      this.delegate = delegate;
+      this.registry = registry;
+      this.productTags = productTags;
+      this.policyName = delegate.getClass().getSimpleName();
+      this.checkTimer = Timer.builder("product.policy.check")
+            .tag("policy", policyName)
+            .publishPercentileHistogram()
+            .register(registry);
+   }
+
+   @Override
+   public Either<ProductAccessException, Boolean> check(Product product, Client client) {
+      Either<ProductAccessException, Boolean> result = checkTimer.record(() -> delegate.check(product, client));
+      if (result.isLeft()) {
+         registry.counter("product.policy.rejections", "policy", policyName, "product", productTags.of(product.productId()))
+               .increment();
+      }
+      return result;
+   }
+
+   @Override
+   public Object cacheKey(Product product, Client client) {
+      return delegate instanceof CacheableProductAccessPolicy cacheable ? cacheable.cacheKey(product, client) : null;
+   }
+}
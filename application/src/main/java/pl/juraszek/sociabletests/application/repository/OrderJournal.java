@@ -0,0 +1,207 @@
+package pl.juraszek.sociabletests.application.repository;
+
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.codec.OrderBinaryCodec;
+import pl.juraszek.sociabletests.domain.order.event.OrderEvent;
+import pl.juraszek.sociabletests.domain.order.event.OrderPlaced;
+import pl.juraszek.sociabletests.domain.order.event.OrderRejected;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed size ring journal of orders in a memory-mapped file:
+ * <pre>
+ * [int magic][long flushed position]([int length][int frame length][{@link OrderBinaryCodec} frame]
+ *       [byte event count]([byte event type][long epoch millis])*)*[int 0]
+ * </pre>
+ * A record is published by writing its length last, after its payload and the terminating zero
+ * after it, so a torn write is never replayed. Events pending on an order are journaled with it
+ * and put back on the replayed order.
+ * <p>
+ * Records are appended after the last one and wrap to the beginning when the end of the file is
+ * reached, a length of {@code -1} marks the wrap. Space is reclaimed as soon as the records in
+ * front of it are flushed, appends wait only while the unflushed records leave no room.
+ * <p>
+ * Writes reach the page cache right away and survive a crash of the process. With {@code sync}
+ * every append is also forced to disk, which makes it survive a crash of the machine.
+ */
+class OrderJournal implements AutoCloseable {
+
+   private static final int MAGIC = 0x4F4A5232;
+   private static final int FLUSHED_OFFSET = Integer.BYTES;
+   private static final int HEADER = Integer.BYTES + Long.BYTES;
+   private static final int WRAP = -1;
+   private static final byte ORDER_PLACED = 0;
+   private static final byte ORDER_REJECTED = 1;
+
+   private final FileChannel channel;
+   private final MappedByteBuffer buffer;
+   private final int capacity;
+   private final boolean sync;
+   private int flushed;
+   private int writePosition;
+
+   OrderJournal(Path path, int capacity, boolean sync) {
+      this.capacity = capacity;
+      this.sync = sync;
+      try {
+         this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+         this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+      if (buffer.getInt(0) != MAGIC) {
+         buffer.putInt(HEADER, 0);
+         buffer.putLong(FLUSHED_OFFSET, HEADER);
+         buffer.putInt(0, MAGIC);
+      }
+      this.flushed = (int) buffer.getLong(FLUSHED_OFFSET);
+      this.writePosition = readRecords(null);
+      if (writePosition == flushed) {
+         markAllFlushed();
+      }
+   }
+
+   /**
+    * Reads orders appended but not flushed yet, e.g. before a crash, with their pending events.
+    */
+   synchronized List<Order> replay() {
+      List<Order> orders = new ArrayList<>();
+      readRecords(orders);
+      return orders;
+   }
+
+   /**
+    * @return position right after the appended record, to be passed to {@link #markFlushed(long)}
+    */
+   synchronized long append(Order order) throws InterruptedException {
+      byte[] payload = encode(order);
+      int required = Integer.BYTES + payload.length + Integer.BYTES;
+      if (required > capacity - HEADER - Integer.BYTES) {
+         throw new IllegalArgumentException(String.format("Order %s does not fit into the journal", order.getId()));
+      }
+      int position;
+      while ((position = positionFor(required)) < 0) {
+         wait();
+      }
+      buffer.put(position + Integer.BYTES, payload);
+      buffer.putInt(position + Integer.BYTES + payload.length, 0);
+      buffer.putInt(position, payload.length);
+      if (sync) {
+         buffer.force(position, required);
+      }
+      if (position != writePosition) {
+         buffer.putInt(writePosition, WRAP);
+         if (sync) {
+            buffer.force(writePosition, Integer.BYTES);
+         }
+      }
+      writePosition = position + Integer.BYTES + payload.length;
+      return writePosition;
+   }
+
+   synchronized void markFlushed(long position) {
+      if (position == writePosition) {
+         buffer.putInt(HEADER, 0);
+         flushed = HEADER;
+         writePosition = HEADER;
+      } else {
+         flushed = (int) position;
+      }
+      buffer.putLong(FLUSHED_OFFSET, flushed);
+      if (sync) {
+         buffer.force(0, HEADER + Integer.BYTES);
+      }
+      notifyAll();
+   }
+
+   synchronized void markAllFlushed() {
+      markFlushed(writePosition);
+   }
+
+   synchronized int pendingBytes() {
+      return writePosition >= flushed ? writePosition - flushed : capacity - flushed + writePosition - HEADER;
+   }
+
+   /**
+    * The terminating zero of a record has to stay in front of the oldest unflushed record, so a
+    * record fits into a gap only together with it.
+    *
+    * @return where a record of the given size goes, -1 while the unflushed records leave no room
+    */
+   private int positionFor(int required) {
+      if (writePosition < flushed) {
+         return writePosition + required <= flushed ? writePosition : -1;
+      }
+      if (writePosition + required <= capacity) {
+         return writePosition;
+      }
+      return HEADER + required <= flushed ? HEADER : -1;
+   }
+
+   private int readRecords(List<Order> orders) {
+      int position = flushed;
+      boolean wrapped = false;
+      while (position + Integer.BYTES <= capacity) {
+         int length = buffer.getInt(position);
+         if (length == WRAP && !wrapped) {
+            position = HEADER;
+            wrapped = true;
+            continue;
+         }
+         if (length <= 0 || position + Integer.BYTES + length > capacity) {
+            break;
+         }
+         if (orders != null) {
+            byte[] payload = new byte[length];
+            buffer.get(position + Integer.BYTES, payload);
+            orders.add(decode(payload));
+         }
+         position += Integer.BYTES + length;
+      }
+      return position;
+   }
+
+   private static byte[] encode(Order order) {
+      byte[] frame = OrderBinaryCodec.encode(order);
+      List<OrderEvent> events = order.pendingEvents();
+      ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES + frame.length + 1 + events.size() * (1 + Long.BYTES));
+      payload.putInt(frame.length).put(frame).put((byte) events.size());
+      for (OrderEvent event : events) {
+         payload.put(event instanceof OrderPlaced ? ORDER_PLACED : ORDER_REJECTED).putLong(event.occurredAt().toEpochMilli());
+      }
+      return payload.array();
+   }
+
+   private static Order decode(byte[] record) {
+      ByteBuffer payload = ByteBuffer.wrap(record);
+      byte[] frame = new byte[payload.getInt()];
+      payload.get(frame);
+      Order order = OrderBinaryCodec.decode(frame);
+      List<OrderEvent> events = new ArrayList<>();
+      for (int count = payload.get(); count > 0; count--) {
+         byte type = payload.get();
+         Instant occurredAt = Instant.ofEpochMilli(payload.getLong());
+         events.add(type == ORDER_PLACED
+               ? new OrderPlaced(order.getId(), order.getClientId(), occurredAt)
+               : new OrderRejected(order.getId(), order.getClientId(), occurredAt));
+      }
+      order.returnEvents(events);
+      return order;
+   }
+
+   @Override
+   public void close() throws IOException {
+      buffer.force();
+      channel.close();
+   }
+}
@@ -0,0 +1,174 @@
+package pl.juraszek.sociabletests.application.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.OrderQuery;
+import pl.juraszek.sociabletests.domain.order.OrderRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind decorator of an {@link OrderRepository}. A saved order is appended to an
+ * {@link OrderJournal} and returned right away, a flusher thread saves queued orders to the
+ * delegate in batches and retries failed batches with backoff. Orders left in the journal by a
+ * crash are saved to the delegate with their pending events before the decorator is used.
+ * <p>
+ * Saves block when the queue or the journal is full, so a slow delegate slows writers down
+ * instead of growing memory. The delegate has to keep ids of saved orders, unflushed orders are
+ * visible to {@link #findById(String)} but not to {@link #find(OrderQuery)}.
+ */
+@Slf4j
+public class WriteBehindOrderRepository implements OrderRepository, AutoCloseable {
+
+   private static final Duration IDLE_POLL = Duration.ofMillis(100);
+   private static final Duration MIN_RETRY_BACKOFF = Duration.ofMillis(10);
+
+   private final OrderRepository delegate;
+   private final OrderJournal journal;
+   private final BlockingQueue<Pending> queue;
+   private final Map<String, Order> unflushed = new ConcurrentHashMap<>();
+   private final Object appendLock = new Object();
+   private final int batchSize;
+   private final long maxRetryBackoffMillis;
+   private final Timer flushLag;
+   private final Thread flusher;
+   private volatile boolean running = true;
+
+   public WriteBehindOrderRepository(OrderRepository delegate, WriteBehindProperties properties, MeterRegistry registry) {
+      this.delegate = delegate;
+      this.journal = new OrderJournal(properties.journal(), (int) properties.journalSize().toBytes(), properties.syncJournal());
+      this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+      this.batchSize = properties.batchSize();
+      this.maxRetryBackoffMillis = properties.maxRetryBackoff().toMillis();
+      this.flushLag = Timer.builder("order.repository.write_behind.lag")
+            .publishPercentileHistogram()
+            .register(registry);
+      Gauge.builder("order.repository.write_behind.queue", queue, BlockingQueue::size).register(registry);
+      Gauge.builder("order.repository.write_behind.journal", journal, OrderJournal::pendingBytes)
+            .baseUnit("bytes")
+            .register(registry);
+      replay();
+      this.flusher = new Thread(this::flushLoop, "order-repository-write-behind");
+      this.flusher.setDaemon(true);
+      this.flusher.start();
+   }
+
+   @Override
+   public Order save(Order order) {
+      if (!running) {
+         throw new IllegalStateException("Order repository is closed");
+      }
+      try {
+         synchronized (appendLock) {
+            long journalPosition = journal.append(order);
+            unflushed.put(order.getId(), order);
+            queue.put(new Pending(order, journalPosition, System.nanoTime()));
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("Interrupted while waiting for write-behind buffer", e);
+      }
+      return order;
+   }
+
+   @Override
+   public List<Order> saveAll(List<Order> orders) {
+      orders.forEach(this::save);
+      return orders;
+   }
+
+   @Override
+   public Optional<Order> findById(String id) {
+      Order order = unflushed.get(id);
+      return order != null ? Optional.of(order) : delegate.findById(id);
+   }
+
+   @Override
+   public Stream<Order> find(OrderQuery query) {
+      return delegate.find(query);
+   }
+
+   @Override
+   public void close() throws Exception {
+      running = false;
+      flusher.join();
+      journal.close();
+      if (delegate instanceof AutoCloseable closeable) {
+         closeable.close();
+      }
+   }
+
+   private void replay() {
+      List<Order> orders = journal.replay();
+      if (!orders.isEmpty()) {
+         log.info("Replaying {} orders from write-behind journal", orders.size());
+         delegate.saveAll(orders);
+         journal.markAllFlushed();
+      }
+   }
+
+   private void flushLoop() {
+      List<Pending> batch = new ArrayList<>(batchSize);
+      while (running || !queue.isEmpty()) {
+         try {
+            Pending first = queue.poll(IDLE_POLL.toNanos(), TimeUnit.NANOSECONDS);
+            if (first == null) {
+               continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            if (!flush(batch)) {
+               return;
+            }
+            batch.clear();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+         }
+      }
+   }
+
+   /**
+    * @return false when the batch was abandoned on close, later batches must not be flushed then
+    */
+   private boolean flush(List<Pending> batch) throws InterruptedException {
+      List<Order> orders = batch.stream().map(Pending::order).toList();
+      long backoff = MIN_RETRY_BACKOFF.toMillis();
+      while (true) {
+         try {
+            delegate.saveAll(orders);
+            break;
+         } catch (RuntimeException e) {
+            if (!running) {
+               log.error("Giving up flushing {} orders on close, they stay in the journal", orders.size() + queue.size(), e);
+               return false;
+            }
+            log.warn("Failed to flush {} orders, retrying in {} ms", orders.size(), backoff, e);
+            Thread.sleep(backoff);
+            backoff = Math.min(backoff * 2, maxRetryBackoffMillis);
+         }
+      }
+      journal.markFlushed(batch.get(batch.size() - 1).journalPosition());
+      long now = System.nanoTime();
+      for (Pending pending : batch) {
+         unflushed.remove(pending.order().getId(), pending.order());
+         flushLag.record(now - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+      }
+      return true;
+   }
+
+   private record Pending(Order order, long journalPosition, long enqueuedAt) {
+   }
+}
@@ -0,0 +1,18 @@
+package pl.juraszek.sociabletests.application.repository;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "order-repository.write-behind")
+public record WriteBehindProperties(@DefaultValue("false") boolean enabled,
+                                    @DefaultValue("orders.journal") Path journal,
+                                    @DefaultValue("64MB") DataSize journalSize,
+                                    @DefaultValue("false") boolean syncJournal,
+                                    @DefaultValue("10000") int queueCapacity,
+                                    @DefaultValue("500") int batchSize,
+                                    @DefaultValue("5s") Duration maxRetryBackoff) {
+}
@@ -0,0 +1,223 @@
+package pl.juraszek.sociabletests.application.rules;
+
+import io.vavr.control.Either;
+import lombok.RequiredArgsConstructor;
+import pl.juraszek.sociabletests.domain.client.Client;
+import pl.juraszek.sociabletests.domain.order.access.CacheableProductAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessException;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalog;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+/**
+ * Compiles access rules into product policies. Every rule denies a product when its
+ * {@code deny-when} condition holds:
+ * <pre>
+ * rules:
+ *   - name: premium-products
+ *     deny-when:
+ *       all:
+ *         - premium: true
+ *         - client-premium: false
+ *     message: Premium product {product} requires a premium subscription
+ * </pre>
+ * A condition is a single entry map: {@code all}, {@code any} (lists of conditions), {@code not},
+ * product attributes {@code product-id} (list), {@code product-id-prefix}, {@code amount-above},
+ * {@code amount-below}, catalog attributes {@code premium}, {@code age-restricted},
+ * {@code region} (list) and client attributes {@code client} (list of names), {@code client-premium}.
+ * <p>
+ * Conditions are turned into nested predicates once, at load time, so a check does not look at
+ * the rule tree again. Rules that do not look at amounts are cacheable, per client when the
+ * condition or the message refers to the client name.
+ */
+@RequiredArgsConstructor
+public class AccessRuleCompiler {
+
+   private final ProductCatalog productCatalog;
+
+   /**
+    * @param rules parsed rule file, a map with a {@code rules} list
+    * @throws IllegalArgumentException when a rule is malformed, naming the rule
+    */
+   public List<ProductAccessPolicy> compile(Map<String, Object> rules) {
+      Object definitions = rules == null ? null : rules.get("rules");
+      if (definitions == null) {
+         return List.of();
+      }
+      return list(definitions, "rules").stream().map(definition -> compileRule(map(definition, "rule"))).toList();
+   }
+
+   private ProductAccessPolicy compileRule(Map<String, Object> rule) {
+      String name = String.valueOf(rule.getOrDefault("name", "unnamed"));
+      try {
+         Usage usage = new Usage();
+         BiPredicate<Product, Client> denied = condition(required(rule, "deny-when"), usage);
+         String message = String.valueOf(rule.getOrDefault("message", "Product {product} is not available for client {client}"));
+         // a cached rejection is reused across clients unless the client is part of the key
+         usage.clientName |= message.contains("{client}");
+         return new CompiledRule(name, denied, message, usage.amount, usage.clientName, productCatalog);
+      } catch (IllegalArgumentException | ClassCastException e) {
+         throw new IllegalArgumentException(String.format("Invalid access rule %s: %s", name, e.getMessage()), e);
+      }
+   }
+
+   private BiPredicate<Product, Client> condition(Object definition, Usage usage) {
+      Map<String, Object> condition = map(definition, "condition");
+      if (condition.size() != 1) {
+         throw new IllegalArgumentException(String.format("Condition must have a single key, got %s", condition.keySet()));
+      }
+      Map.Entry<String, Object> entry = condition.entrySet().iterator().next();
+      Object value = entry.getValue();
+      return switch (entry.getKey()) {
+         case "all" -> all(list(value, "all").stream().map(nested -> condition(nested, usage)).toList());
+         case "any" -> any(list(value, "any").stream().map(nested -> condition(nested, usage)).toList());
+         case "not" -> condition(value, usage).negate();
+         case "product-id" -> {
+            Set<String> ids = strings(value, "product-id");
+            yield (product, client) -> ids.contains(product.productId());
+         }
+         case "product-id-prefix" -> {
+            String prefix = (String) value;
+            yield (product, client) -> product.productId().startsWith(prefix);
+         }
+         case "amount-above" -> {
+            usage.amount = true;
+            int limit = ((Number) value).intValue();
+            yield (product, client) -> product.amount() > limit;
+         }
+         case "amount-below" -> {
+            usage.amount = true;
+            int limit = ((Number) value).intValue();
+            yield (product, client) -> product.amount() < limit;
+         }
+         case "premium" -> (Boolean) value
+               ? (product, client) -> productCatalog.isPremium(product.productId())
+               : (product, client) -> !productCatalog.isPremium(product.productId());
+         case "age-restricted" -> (Boolean) value
+               ? (product, client) -> productCatalog.isAgeRestricted(product.productId())
+               : (product, client) -> !productCatalog.isAgeRestricted(product.productId());
+         case "region" -> {
+            Set<String> regions = strings(value, "region");
+            yield (product, client) -> productCatalog.region(product.productId()).map(regions::contains).orElse(false);
+         }
+         case "client" -> {
+            usage.clientName = true;
+            Set<String> names = strings(value, "client");
+            yield (product, client) -> names.contains(client.name());
+         }
+         case "client-premium" -> (Boolean) value
+               ? (product, client) -> client.hasPremiumSubscription()
+               : (product, client) -> !client.hasPremiumSubscription();
+         default -> throw new IllegalArgumentException(String.format("Unknown condition %s", entry.getKey()));
+      };
+   }
+
+   private static BiPredicate<Product, Client> all(List<BiPredicate<Product, Client>> conditions) {
+      if (conditions.size() == 1) {
+         return conditions.get(0);
+      }
+      if (conditions.size() == 2) {
+         BiPredicate<Product, Client> first = conditions.get(0);
+         BiPredicate<Product, Client> second = conditions.get(1);
+         return (product, client) -> first.test(product, client) && second.test(product, client);
+      }
+      @SuppressWarnings("unchecked")
+      BiPredicate<Product, Client>[] array = conditions.toArray(BiPredicate[]::new);
+      return (product, client) -> {
+         for (BiPredicate<Product, Client> condition : array) {
+            if (!condition.test(product, client)) {
+               return false;
+            }
+         }
+         return true;
+      };
+   }
+
+   private static BiPredicate<Product, Client> any(List<BiPredicate<Product, Client>> conditions) {
+      if (conditions.size() == 1) {
+         return conditions.get(0);
+      }
+      if (conditions.size() == 2) {
+         BiPredicate<Product, Client> first = conditions.get(0);
+         BiPredicate<Product, Client> second = conditions.get(1);
+         return (product, client) -> first.test(product, client) || second.test(product, client);
+      }
+      @SuppressWarnings("unchecked")
+      BiPredicate<Product, Client>[] array = conditions.toArray(BiPredicate[]::new);
+      return (product, client) -> {
+         for (BiPredicate<Product, Client> condition : array) {
+            if (condition.test(product, client)) {
+               return true;
+            }
+         }
+         return false;
+      };
+   }
+
+   private static Object required(Map<String, Object> definition, String key) {
+      Object value = definition.get(key);
+      if (value == null) {
+         throw new IllegalArgumentException(String.format("Missing %s", key));
+      }
+      return value;
+   }
+
+   @SuppressWarnings("unchecked")
+   private static Map<String, Object> map(Object value, String name) {
+      if (value instanceof Map<?, ?> map) {
+         return (Map<String, Object>) map;
+      }
+      throw new IllegalArgumentException(String.format("Expected %s to be a map", name));
+   }
+
+   private static List<?> list(Object value, String name) {
+      if (value instanceof List<?> list && !list.isEmpty()) {
+         return list;
+      }
+      throw new IllegalArgumentException(String.format("Expected %s to be a non-empty list", name));
+   }
+
+   private static Set<String> strings(Object value, String name) {
+      return Set.copyOf(list(value, name).stream().map(String::valueOf).toList());
+   }
+
+   private static class Usage {
+      private boolean amount;
+      private boolean clientName;
+   }
+
+   private record CompiledRule(String name, BiPredicate<Product, Client> denied, String message, boolean usesAmount,
+                               boolean usesClientName, ProductCatalog productCatalog) implements CacheableProductAccessPolicy {
+
+      @Override
+      public Either<ProductAccessException, Boolean> check(Product product, Client client) {
+         if (denied.test(product, client)) {
+            return Either.left(new ProductAccessException(
+                  message.replace("{product}", product.productId()).replace("{client}", client.name()), product.productId()));
+         }
+         return ACCESS_GRANTED;
+      }
+
+      @Override
+      public Object cacheKey(Product product, Client client) {
+         if (usesAmount) {
+            return null;
+         }
+         return new CacheKey(product.productId(), usesClientName ? client.name() : null, client.hasPremiumSubscription(),
+               productCatalog.version());
+      }
+
+      @Override
+      public String toString() {
+         return "AccessRule[" + name + "]";
+      }
+   }
+
+   private record CacheKey(String productId, String clientName, boolean premiumSubscription, long catalogVersion) {
+   }
+}
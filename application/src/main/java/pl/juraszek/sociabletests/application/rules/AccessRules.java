@@ -0,0 +1,103 @@
+package pl.juraszek.sociabletests.application.rules;
+
+import lombok.extern.slf4j.Slf4j;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import pl.juraszek.sociabletests.domain.order.access.OrderAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessPolicy;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads access rules from a file, compiles them and installs them in the {@link OrderAccessPolicy}
+ * next to the policies defined as beans. The file is polled for changes, a modified file is
+ * compiled off the request path and swapped in with {@link OrderAccessPolicy#reconfigure(List)},
+ * so checks in progress finish with the previous rules and no check waits for a reload.
+ * A file that does not compile keeps the previous rules.
+ */
+@Slf4j
+public class AccessRules implements AutoCloseable {
+
+   private final Path path;
+   private final AccessRuleCompiler compiler;
+   private final OrderAccessPolicy orderAccessPolicy;
+   private final List<ProductAccessPolicy> beanPolicies;
+   private final ScheduledExecutorService reloader;
+   private volatile FileTime loaded;
+   private volatile int ruleCount;
+
+   public AccessRules(AccessRulesProperties properties, AccessRuleCompiler compiler, OrderAccessPolicy orderAccessPolicy,
+                      List<ProductAccessPolicy> beanPolicies) {
+      this.path = properties.path();
+      this.compiler = compiler;
+      this.orderAccessPolicy = orderAccessPolicy;
+      this.beanPolicies = List.copyOf(beanPolicies);
+      load();
+      this.reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+         Thread thread = new Thread(runnable, "access-rules-reloader");
+         thread.setDaemon(true);
+         return thread;
+      });
+      long interval = properties.reloadInterval().toMillis();
+      reloader.scheduleWithFixedDelay(this::reloadIfModified, interval, interval, TimeUnit.MILLISECONDS);
+   }
+
+   public void reloadIfModified() {
+      try {
+         if (!lastModified().equals(loaded)) {
+            load();
+         }
+      } catch (RuntimeException e) {
+         log.error("Failed to reload access rules {}, keeping previous rules", path, e);
+      }
+   }
+
+   public int ruleCount() {
+      return ruleCount;
+   }
+
+   @Override
+   public void close() {
+      reloader.shutdownNow();
+   }
+
+   private synchronized void load() {
+      FileTime modified = lastModified();
+      List<ProductAccessPolicy> rules = compiler.compile(parse());
+      List<ProductAccessPolicy> policies = new ArrayList<>(beanPolicies.size() + rules.size());
+      policies.addAll(beanPolicies);
+      policies.addAll(rules);
+      orderAccessPolicy.reconfigure(policies);
+      loaded = modified;
+      ruleCount = rules.size();
+      log.info("Loaded {} access rules from {}", rules.size(), path);
+   }
+
+   private Map<String, Object> parse() {
+      try (Reader reader = Files.newBufferedReader(path)) {
+         return new Yaml(new SafeConstructor(new LoaderOptions())).load(reader);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   private FileTime lastModified() {
+      try {
+         return Files.getLastModifiedTime(path);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+}
@@ -0,0 +1,15 @@
+package pl.juraszek.sociabletests.application.rules;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Rules file is YAML, JSON being a subset of it works as well.
+ */
+@ConfigurationProperties(prefix = "order-access.rules")
+public record AccessRulesProperties(Path path,
+                                    @DefaultValue("5s") Duration reloadInterval) {
+}
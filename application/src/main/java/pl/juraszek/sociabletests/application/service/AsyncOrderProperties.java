@@ -0,0 +1,15 @@
+package pl.juraszek.sociabletests.application.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "order-service.async")
+public record AsyncOrderProperties(@DefaultValue Bulkhead client, @DefaultValue Bulkhead repository) {
+
+   public record Bulkhead(@DefaultValue("2s") Duration timeout,
+                          @DefaultValue("32") int maxConcurrent,
+                          @DefaultValue("256") int queueCapacity) {
+   }
+}
@@ -0,0 +1,39 @@
+package pl.juraszek.sociabletests.application.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.NonNull;
+import pl.juraszek.sociabletests.domain.client.Client;
+import pl.juraszek.sociabletests.domain.client.ClientProvider;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.OrderRepository;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+@RequiredArgsConstructor
+public class AsyncOrderService {
+
+   private final ClientProvider clientProvider;
+   private final OrderService orderService;
+   private final OrderRepository orderRepository;
+   private final PortBulkhead clientBulkhead;
+   private final PortBulkhead repositoryBulkhead;
+
+   /**
+    * Same steps as {@link OrderService#placeOrder(List, String)}, but the client is fetched and the
+    * order saved on bulkheaded pools, so the calling thread is released right away.
+    * The order basket is built while the client is being fetched. A save that timed out is not
+    * cancelled once it started, so the order may still be saved after the returned future failed.
+    */
+   public CompletableFuture<Order> placeOrderAsync(@NonNull List<Product> products, @NonNull String clientId) {
+      CompletableFuture<Optional<Client>> client = clientBulkhead.call(() -> clientProvider.fetchClient(clientId));
+
+      Order order = Order.init(clientId);
+      order.add(products);
+
+      return client.thenApply(fetchedClient -> orderService.placeOrder(order, fetchedClient))
+            .thenCompose(placedOrder -> repositoryBulkhead.call(() -> orderRepository.save(placedOrder)));
+   }
+}
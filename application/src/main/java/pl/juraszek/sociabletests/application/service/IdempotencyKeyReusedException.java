@@ -0,0 +1,7 @@
+package pl.juraszek.sociabletests.application.service;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+   public IdempotencyKeyReusedException(String message) {
+      super(message);
+   }
+}
@@ -0,0 +1,98 @@
+package pl.juraszek.sociabletests.application.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import pl.juraszek.sociabletests.domain.order.IdempotencyKeyStore;
+import pl.juraszek.sociabletests.domain.order.IdempotencyKeyStore.Placement;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+public class IdempotentOrderService {
+
+   private final OrderService orderService;
+   private final IdempotencyKeyStore idempotencyKeyStore;
+   private final Map<String, CompletableFuture<Placement>> inFlight = new ConcurrentHashMap<>();
+
+   /**
+    * Places the order once per idempotency key. A repeated key returns the stored order, and
+    * requests arriving while the first one is still running wait for its result.
+    * Keys are scoped by client. Failed placements are not stored, so they can be retried with the same key.
+    *
+    * @throws IdempotencyKeyReusedException when the key was used for different products
+    */
+   public Order placeOrder(@NonNull String idempotencyKey, @NonNull List<Product> products, @NonNull String clientId) {
+      String key = clientId + ':' + idempotencyKey;
+      String fingerprint = fingerprint(products);
+      Optional<Placement> placed = idempotencyKeyStore.find(key);
+      if (placed.isPresent()) {
+         return orderOf(placed.get(), fingerprint, idempotencyKey);
+      }
+
+      CompletableFuture<Placement> placement = new CompletableFuture<>();
+      CompletableFuture<Placement> running = inFlight.putIfAbsent(key, placement);
+      if (running != null) {
+         return orderOf(await(running), fingerprint, idempotencyKey);
+      }
+
+      try {
+         Placement stored = idempotencyKeyStore.find(key)
+               .orElseGet(() -> new Placement(fingerprint, orderService.placeOrder(products, clientId)));
+         idempotencyKeyStore.put(key, stored);
+         placement.complete(stored);
+         return orderOf(stored, fingerprint, idempotencyKey);
+      } catch (RuntimeException e) {
+         placement.completeExceptionally(e);
+         throw e;
+      } finally {
+         inFlight.remove(key, placement);
+      }
+   }
+
+   private Order orderOf(Placement placement, String fingerprint, String idempotencyKey) {
+      if (!placement.fingerprint().equals(fingerprint)) {
+         throw new IdempotencyKeyReusedException(
+               String.format("Idempotency key %s was already used for a different order", idempotencyKey));
+      }
+      return placement.order();
+   }
+
+   private Placement await(CompletableFuture<Placement> placement) {
+      try {
+         return placement.join();
+      } catch (CompletionException e) {
+         throw (RuntimeException) e.getCause();
+      }
+   }
+
+   /**
+    * Products are hashed in request order, the client is already part of the key.
+    */
+   private static String fingerprint(List<Product> products) {
+      try {
+         MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         for (Product product : products) {
+            digest.update(product.productId().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Integer.toString(product.amount()).getBytes(StandardCharsets.US_ASCII));
+            digest.update((byte) '\n');
+         }
+         return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+      } catch (NoSuchAlgorithmException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+}
@@ -0,0 +1,9 @@
+package pl.juraszek.sociabletests.application.service;
+
+import org.springframework.lang.NonNull;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+import java.util.List;
+
+public record OrderRequest(@NonNull List<Product> products, @NonNull String clientId) {
+}
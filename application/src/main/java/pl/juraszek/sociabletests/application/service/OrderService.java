@@ -1,25 +1,39 @@
 package pl.juraszek.sociabletests.application.service;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.observation.ObservationRegistry;
+import io.vavr.control.Either;
 import lombok.RequiredArgsConstructor;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
+import pl.juraszek.sociabletests.application.tracing.OrderStage;
 import pl.juraszek.sociabletests.domain.client.Client;
 import pl.juraszek.sociabletests.domain.client.ClientAccessException;
 import pl.juraszek.sociabletests.domain.client.ClientProvider;
 import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.OrderQuery;
 import pl.juraszek.sociabletests.domain.order.OrderRepository;
 import pl.juraszek.sociabletests.domain.order.access.OrderAccessPolicy;
 import pl.juraszek.sociabletests.domain.order.product.Product;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
 
+   private static final int SAVE_BATCH_SIZE = 500;
+
    private final ClientProvider clientProvider;
    private final OrderAccessPolicy orderAccessPolicy;
    private final OrderRepository orderRepository;
+   private ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
 
    /**
     * Create order with empty product basket
@@ -28,17 +42,108 @@ public class OrderService {
     * Check if client can make an order according to given policies
     * Place order
     */
+   @Timed(value = "order.place", histogram = true)
    public Order placeOrder(@NonNull List<Product> products, @NonNull String clientId) {
       Order order = Order.init(clientId);
       order.add(products);
 
-      clientProvider.fetchClient(clientId)
-            .ifPresentOrElse(client -> placeOrderForClient(order, client), () -> handleNotExistentClient(clientId));
+      placeOrder(order, clientProvider.fetchClient(clientId));
 
       return orderRepository.save(order);
    }
 
+   /**
+    * Places or rejects an order for a client fetched elsewhere, e.g. by {@link AsyncOrderService},
+    * without saving it. The access check is observed like in {@link #placeOrder(List, String)}.
+    *
+    * @throws ClientAccessException when the client does not exist
+    */
+   public Order placeOrder(@NonNull Order order, @NonNull Optional<Client> client) {
+      placeOrderForClient(order, client.orElseThrow(() -> clientNotFound(order.getClientId())));
+      return order;
+   }
+
+   /**
+    * Same steps as {@link #placeOrder(List, String)}, but every client is fetched once per batch
+    * and orders are saved in chunks. Results keep the order of requests, an unknown client
+    * results in a left value instead of failing the whole batch.
+    */
+   @Timed(value = "order.place.batch", histogram = true)
+   public List<Either<ClientAccessException, Order>> placeOrders(@NonNull List<OrderRequest> requests) {
+      Map<String, Optional<Client>> clients = fetchClients(requests);
+
+      List<Either<ClientAccessException, Order>> results = requests.stream()
+            .map(request -> prepareOrder(request, clients.get(request.clientId())))
+            .collect(Collectors.toCollection(ArrayList::new));
+
+      saveInBatches(results);
+      return results;
+   }
+
+   /**
+    * Set when order tracing is enabled, the access check of every order is then observed as
+    * {@link OrderStage#ACCESS_CHECK}.
+    */
+   public void setObservationRegistry(@NonNull ObservationRegistry observationRegistry) {
+      this.observationRegistry = observationRegistry;
+   }
+
+   public Optional<Order> findOrder(@NonNull String id) {
+      return orderRepository.findById(id);
+   }
+
+   /**
+    * Orders are read lazily, the returned stream has to be closed by the caller.
+    */
+   public Stream<Order> findOrders(@NonNull OrderQuery query) {
+      return orderRepository.find(query);
+   }
+
+   private Map<String, Optional<Client>> fetchClients(List<OrderRequest> requests) {
+      return requests.stream()
+            .map(OrderRequest::clientId)
+            .distinct()
+            .collect(Collectors.toMap(Function.identity(), clientProvider::fetchClient));
+   }
+
+   private Either<ClientAccessException, Order> prepareOrder(OrderRequest request, Optional<Client> client) {
+      if (client.isEmpty()) {
+         return Either.left(clientNotFound(request.clientId()));
+      }
+      Order order = Order.init(request.clientId());
+      order.add(request.products());
+      placeOrderForClient(order, client.get());
+      return Either.right(order);
+   }
+
+   private void saveInBatches(List<Either<ClientAccessException, Order>> results) {
+      List<Integer> positions = new ArrayList<>(SAVE_BATCH_SIZE);
+      List<Order> batch = new ArrayList<>(SAVE_BATCH_SIZE);
+      for (int i = 0; i < results.size(); i++) {
+         if (results.get(i).isRight()) {
+            positions.add(i);
+            batch.add(results.get(i).get());
+         }
+         if (batch.size() == SAVE_BATCH_SIZE || (i == results.size() - 1 && !batch.isEmpty())) {
+            List<Order> saved = orderRepository.saveAll(batch);
+            for (int j = 0; j < saved.size(); j++) {
+               results.set(positions.get(j), Either.right(saved.get(j)));
+            }
+            positions.clear();
+            batch.clear();
+         }
+      }
+   }
+
    private void placeOrderForClient(Order order, Client client) {
+      if (observationRegistry.isNoop()) {
+         checkAndPlace(order, client);
+      } else {
+         OrderStage.ACCESS_CHECK.observation(observationRegistry).observe(() -> checkAndPlace(order, client));
+      }
+   }
+
+   private void checkAndPlace(Order order, Client client) {
       order.place(client, orderAccessPolicy).getOrElse(() -> handleOrderPlacementFailure(order));
    }
 
@@ -47,8 +152,8 @@ public class OrderService {
       return order;
    }
 
-   private void handleNotExistentClient(String clientId) {
-      throw new ClientAccessException(String.format("Client with given id %s not found!", clientId));
+   private ClientAccessException clientNotFound(String clientId) {
+      return new ClientAccessException(String.format("Client with given id %s not found!", clientId));
    }
 
-}
\ No newline at end of file
+}
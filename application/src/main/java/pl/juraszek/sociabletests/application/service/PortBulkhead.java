@@ -0,0 +1,70 @@
+package pl.juraszek.sociabletests.application.service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated pool for calls to a single port. Once all threads are busy and the queue is full new
+ * calls fail immediately instead of piling up, and every call fails after the configured timeout.
+ * A call that timed out before it started is never run. With {@code interruptOnTimeout} a call
+ * that already runs is interrupted as well, so a stalled port gives its thread back to the pool.
+ * Calls with side effects, e.g. saves that may still commit, should be left running instead.
+ */
+public class PortBulkhead implements AutoCloseable {
+
+   private final ThreadPoolExecutor executor;
+   private final Duration timeout;
+   private final boolean interruptOnTimeout;
+
+   public PortBulkhead(String name, AsyncOrderProperties.Bulkhead properties) {
+      this(name, properties, true);
+   }
+
+   public PortBulkhead(String name, AsyncOrderProperties.Bulkhead properties, boolean interruptOnTimeout) {
+      AtomicInteger threads = new AtomicInteger();
+      this.executor = new ThreadPoolExecutor(properties.maxConcurrent(), properties.maxConcurrent(), 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(properties.queueCapacity()), runnable -> {
+         Thread thread = new Thread(runnable, String.format("%s-%s", name, threads.incrementAndGet()));
+         thread.setDaemon(true);
+         return thread;
+      });
+      this.executor.allowCoreThreadTimeOut(true);
+      this.timeout = properties.timeout();
+      this.interruptOnTimeout = interruptOnTimeout;
+   }
+
+   public <T> CompletableFuture<T> call(Supplier<T> call) {
+      CompletableFuture<T> result = new CompletableFuture<>();
+      Future<?> task;
+      try {
+         task = executor.submit(() -> {
+            try {
+               result.complete(call.get());
+            } catch (Throwable e) {
+               result.completeExceptionally(e);
+            }
+         });
+      } catch (RejectedExecutionException e) {
+         return CompletableFuture.failedFuture(e);
+      }
+      result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((value, failure) -> {
+         if (failure instanceof TimeoutException) {
+            task.cancel(interruptOnTimeout);
+         }
+      });
+      return result;
+   }
+
+   @Override
+   public void close() {
+      executor.shutdown();
+   }
+}
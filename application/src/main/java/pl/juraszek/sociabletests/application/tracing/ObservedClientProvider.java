@@ -0,0 +1,21 @@
+package pl.juraszek.sociabletests.application.tracing;
+
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.NonNull;
+import pl.juraszek.sociabletests.domain.client.Client;
+import pl.juraszek.sociabletests.domain.client.ClientProvider;
+
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class ObservedClientProvider implements ClientProvider {
+
+   private final ClientProvider delegate;
+   private final ObservationRegistry registry;
+
+   @Override
+   public @NonNull Optional<Client> fetchClient(@NonNull String name) {
+      return OrderStage.CLIENT_FETCH.observation(registry).observe(() -> delegate.fetchClient(name));
+   }
+}
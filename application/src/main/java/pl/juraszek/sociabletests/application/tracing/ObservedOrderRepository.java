@@ -0,0 +1,48 @@
+package pl.juraszek.sociabletests.application.tracing;
+
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.OrderQuery;
+import pl.juraszek.sociabletests.domain.order.OrderRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Observes saves only, reads are not part of an order placement.
+ */
+@RequiredArgsConstructor
+public class ObservedOrderRepository implements OrderRepository, AutoCloseable {
+
+   private final OrderRepository delegate;
+   private final ObservationRegistry registry;
+
+   @Override
+   public Order save(Order order) {
+      return OrderStage.REPOSITORY_SAVE.observation(registry).observe(() -> delegate.save(order));
+   }
+
+   @Override
+   public List<Order> saveAll(List<Order> orders) {
+      return OrderStage.REPOSITORY_SAVE.observation(registry).observe(() -> delegate.saveAll(orders));
+   }
+
+   @Override
+   public Optional<Order> findById(String id) {
+      return delegate.findById(id);
+   }
+
+   @Override
+   public Stream<Order> find(OrderQuery query) {
+      return delegate.find(query);
+   }
+
+   @Override
+   public void close() throws Exception {
+      if (delegate instanceof AutoCloseable closeable) {
+         closeable.close();
+      }
+   }
+}
@@ -0,0 +1,37 @@
+package pl.juraszek.sociabletests.application.tracing;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Stages of an order placement. All stages are observed under the single {@link #OBSERVATION_NAME}
+ * and told apart by the {@code stage} key, so they end up as one timer with a tag and as spans
+ * named after the stage.
+ */
+public enum OrderStage {
+   BIND("order.bind"),
+   CLIENT_FETCH("order.client.fetch"),
+   ACCESS_CHECK("order.access.check"),
+   REPOSITORY_SAVE("order.repository.save");
+
+   public static final String OBSERVATION_NAME = "order.stage";
+
+   private final String stageName;
+   private final KeyValue stageKey;
+
+   OrderStage(String stageName) {
+      this.stageName = stageName;
+      this.stageKey = KeyValue.of("stage", stageName);
+   }
+
+   public String stageName() {
+      return stageName;
+   }
+
+   public Observation observation(ObservationRegistry registry) {
+      return Observation.createNotStarted(OBSERVATION_NAME, registry)
+            .contextualName(stageName)
+            .lowCardinalityKeyValue(stageKey);
+   }
+}
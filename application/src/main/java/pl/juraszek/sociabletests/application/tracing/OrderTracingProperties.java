@@ -0,0 +1,15 @@
+package pl.juraszek.sociabletests.application.tracing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * With {@code enabled} off no stage is observed at all. {@code slowThreshold} of zero turns the
+ * slow request sampler off while stages are still traced.
+ */
+@ConfigurationProperties(prefix = "order-tracing")
+public record OrderTracingProperties(@DefaultValue("false") boolean enabled,
+                                     @DefaultValue("500ms") Duration slowThreshold) {
+}
@@ -0,0 +1,102 @@
+package pl.juraszek.sociabletests.application.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationView;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Logs how long every {@link OrderStage} of a request took, but only for requests slower than
+ * the threshold. Every root observation (usually the http server request) collects durations of
+ * the stages observed below it, the breakdown is dropped when the root finishes in time.
+ * A zero threshold turns the sampler off.
+ */
+@Slf4j
+public class SlowOrderSampler implements ObservationHandler<Observation.Context> {
+
+   private final long thresholdNanos;
+
+   public SlowOrderSampler(Duration threshold) {
+      this.thresholdNanos = threshold.toNanos();
+   }
+
+   @Override
+   public void onStart(Observation.Context context) {
+      context.put(Started.class, new Started(System.nanoTime()));
+      if (context.getParentObservation() == null) {
+         context.put(Breakdown.class, new Breakdown());
+      }
+   }
+
+   @Override
+   public void onStop(Observation.Context context) {
+      Started started = context.get(Started.class);
+      if (started == null) {
+         return;
+      }
+      long elapsed = System.nanoTime() - started.nanos();
+      Breakdown breakdown = context.get(Breakdown.class);
+      if (breakdown != null) {
+         if (elapsed >= thresholdNanos && !breakdown.isEmpty()) {
+            log.warn("Slow request {} took {} ms: {}", context.getContextualName() != null ? context.getContextualName()
+                  : context.getName(), elapsed / 1_000_000, breakdown);
+         }
+         return;
+      }
+      if (OrderStage.OBSERVATION_NAME.equals(context.getName())) {
+         Breakdown root = rootBreakdown(context.getParentObservation());
+         if (root != null) {
+            root.add(context.getContextualName(), elapsed);
+         }
+      }
+   }
+
+   @Override
+   public boolean supportsContext(Observation.Context context) {
+      return thresholdNanos > 0;
+   }
+
+   private static Breakdown rootBreakdown(ObservationView observation) {
+      while (observation != null) {
+         Breakdown breakdown = observation.getContextView().get(Breakdown.class);
+         if (breakdown != null) {
+            return breakdown;
+         }
+         observation = observation.getContextView().getParentObservation();
+      }
+      return null;
+   }
+
+   private record Started(long nanos) {
+   }
+
+   private static final class Breakdown {
+      private final List<String> stages = new ArrayList<>(4);
+      private final List<Long> durations = new ArrayList<>(4);
+
+      private synchronized void add(String stage, long nanos) {
+         stages.add(stage);
+         durations.add(nanos);
+      }
+
+      private synchronized boolean isEmpty() {
+         return stages.isEmpty();
+      }
+
+      @Override
+      public synchronized String toString() {
+         StringBuilder breakdown = new StringBuilder(stages.size() * 32);
+         for (int i = 0; i < stages.size(); i++) {
+            if (i > 0) {
+               breakdown.append(", ");
+            }
+            breakdown.append(stages.get(i)).append('=').append(String.format("%.2f ms", durations.get(i) / 1e6));
+         }
+         return breakdown.toString();
+      }
+   }
+}
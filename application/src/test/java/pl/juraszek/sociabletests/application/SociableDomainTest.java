@@ -9,8 +9,10 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
-@SpringBootTest( classes = ApplicationDomain.class)
-@ActiveProfiles({ "domain-test", "mock-order-repository", "mock-client-service" })
+@SpringBootTest(classes = ApplicationDomain.class,
+      webEnvironment = SpringBootTest.WebEnvironment.NONE,
+      properties = "spring.main.lazy-initialization=true")
+@ActiveProfiles({ "domain-test", "mock-order-repository", "mock-client-service", "mock-product-catalog" })
 @EnableConfigurationProperties
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
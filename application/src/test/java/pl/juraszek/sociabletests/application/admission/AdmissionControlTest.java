@@ -0,0 +1,77 @@
+package pl.juraszek.sociabletests.application.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import pl.juraszek.sociabletests.domain.client.ClientProvider;
+import pl.juraszek.sociabletests.domain.client.ClientProviderStub;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionControlTest {
+
+   private final AtomicLong now = new AtomicLong();
+   private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+   private final AdmissionControl admissionControl = new AdmissionControl(
+         new AdmissionProperties(true, new AdmissionProperties.Tier(1, 2), new AdmissionProperties.Tier(1, 5), 2, 100, Duration.ofMinutes(1)),
+         registry, now::get);
+
+   @Test
+   void shouldLimitClientsByTheirSubscriptionTier() {
+      // given
+      ClientProvider clientProvider = new TierTrackingClientProvider(new ClientProviderStub(), admissionControl);
+      tryAdmit("jane_doe");
+      clientProvider.fetchClient("john_doe");
+      clientProvider.fetchClient("jane_doe");
+
+      // when
+      long admittedStandard = IntStream.range(0, 10).filter(i -> tryAdmit("john_doe")).count();
+      long admittedPremium = IntStream.range(0, 10).filter(i -> tryAdmit("jane_doe")).count();
+
+      // then
+      assertThat(admittedStandard).isEqualTo(2);
+      assertThat(admittedPremium).isEqualTo(5);
+      assertThat(registry.get("order.admission.throttled").tag("reason", "rate").counter().count()).isEqualTo(8);
+   }
+
+   @Test
+   void shouldRefillTokensOverTime() {
+      // given
+      IntStream.range(0, 2).forEach(i -> tryAdmit("john_doe"));
+
+      // when
+      boolean throttled = !tryAdmit("john_doe");
+      now.addAndGet(Duration.ofSeconds(1).toNanos());
+
+      // then
+      assertThat(throttled).isTrue();
+      assertThat(tryAdmit("john_doe")).isTrue();
+   }
+
+   @Test
+   void shouldShedRequestsAboveConcurrencyLimit() {
+      // given
+      AdmissionControl.Permit first = admissionControl.admit();
+      AdmissionControl.Permit second = admissionControl.admit();
+
+      // when
+      assertThatThrownBy(admissionControl::admit).isInstanceOf(OrderThrottledException.class);
+      first.close();
+
+      // then
+      assertThat(admissionControl.admit()).isNotNull();
+      second.close();
+   }
+
+   private boolean tryAdmit(String clientId) {
+      try (var permit = admissionControl.admit(clientId)) {
+         return true;
+      } catch (OrderThrottledException e) {
+         return false;
+      }
+   }
+}
@@ -0,0 +1,83 @@
+package pl.juraszek.sociabletests.application.client;
+
+import org.junit.jupiter.api.Test;
+import pl.juraszek.sociabletests.domain.client.Client;
+import pl.juraszek.sociabletests.domain.client.ClientProvider;
+import pl.juraszek.sociabletests.domain.client.ClientProviderStub;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingClientProviderTest {
+
+   private static final int CALLERS = 8;
+
+   private final ClientCacheProperties properties = new ClientCacheProperties(true, Duration.ofMinutes(5), Duration.ofSeconds(30), 100);
+
+   @Test
+   void shouldCacheKnownAndUnknownClients() {
+      // given
+      AtomicInteger fetches = new AtomicInteger();
+      ClientProviderStub stub = new ClientProviderStub();
+      CachingClientProvider clientProvider = new CachingClientProvider(name -> {
+         fetches.incrementAndGet();
+         return stub.fetchClient(name);
+      }, properties);
+
+      // when
+      clientProvider.fetchClient("john_doe");
+      Optional<Client> client = clientProvider.fetchClient("john_doe");
+      clientProvider.fetchClient("none");
+      Optional<Client> unknown = clientProvider.fetchClient("none");
+
+      // then
+      assertThat(client).contains(new Client("john_doe", false));
+      assertThat(unknown).isEmpty();
+      assertThat(fetches).hasValue(2);
+      assertThat(clientProvider.stats().hitCount()).isEqualTo(2);
+   }
+
+   @Test
+   void shouldCoalesceConcurrentMissesForSameClient() {
+      // given
+      AtomicInteger fetches = new AtomicInteger();
+      CountDownLatch entered = new CountDownLatch(CALLERS);
+      ClientProvider slowProvider = name -> {
+         fetches.incrementAndGet();
+         await(entered);
+         return Optional.of(new Client(name, true));
+      };
+      CachingClientProvider clientProvider = new CachingClientProvider(slowProvider, properties);
+      ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+      // when
+      List<CompletableFuture<Optional<Client>>> results = IntStream.range(0, CALLERS)
+            .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+               entered.countDown();
+               return clientProvider.fetchClient("jane_doe");
+            }, callers))
+            .toList();
+
+      // then
+      assertThat(results).allSatisfy(result -> assertThat(result.join()).contains(new Client("jane_doe", true)));
+      assertThat(fetches).hasValue(1);
+      callers.shutdown();
+   }
+
+   private static void await(CountDownLatch latch) {
+      try {
+         latch.await();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}
@@ -0,0 +1,95 @@
+package pl.juraszek.sociabletests.application.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives an operation with a {@link LoadProfile} and records the latency of every call in a
+ * per thread {@link Histogram}, merged into a single {@link LoadReport} at the end. Failed calls
+ * are counted as errors and their latency is recorded too.
+ */
+public final class LoadGenerator {
+
+   private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+   private LoadGenerator() {
+   }
+
+   public static LoadReport run(String name, LoadProfile profile, Operation operation) throws InterruptedException {
+      ExecutorService executor = Executors.newFixedThreadPool(profile.concurrency());
+      try {
+         runFor(executor, profile, profile.warmup(), operation);
+         long start = System.nanoTime();
+         List<Result> results = runFor(executor, profile, profile.duration(), operation);
+         Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+         Histogram latencies = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+         long operations = 0;
+         long errors = 0;
+         for (Result result : results) {
+            latencies.add(result.latencies());
+            operations += result.latencies().getTotalCount();
+            errors += result.errors();
+         }
+         return new LoadReport(name, profile, operations, errors, elapsed, latencies);
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   private static List<Result> runFor(ExecutorService executor, LoadProfile profile, Duration duration,
+                                      Operation operation) throws InterruptedException {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Result>> futures = new ArrayList<>(profile.concurrency());
+      for (int i = 0; i < profile.concurrency(); i++) {
+         futures.add(executor.submit(() -> {
+            start.await();
+            return drive(operation, System.nanoTime() + duration.toNanos());
+         }));
+      }
+      start.countDown();
+      List<Result> results = new ArrayList<>(futures.size());
+      for (Future<Result> future : futures) {
+         try {
+            results.add(future.get());
+         } catch (ExecutionException e) {
+            throw new IllegalStateException("Load generator thread failed", e.getCause());
+         }
+      }
+      return results;
+   }
+
+   private static Result drive(Operation operation, long deadline) {
+      Histogram latencies = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+      long errors = 0;
+      long now = System.nanoTime();
+      while (now < deadline) {
+         long start = now;
+         try {
+            operation.call();
+         } catch (Exception e) {
+            errors++;
+         }
+         now = System.nanoTime();
+         latencies.recordValue(Math.min(now - start, HIGHEST_TRACKABLE_NANOS));
+      }
+      return new Result(latencies, errors);
+   }
+
+   @FunctionalInterface
+   public interface Operation {
+      void call() throws Exception;
+   }
+
+   private record Result(Histogram latencies, long errors) {
+   }
+}
@@ -0,0 +1,28 @@
+package pl.juraszek.sociabletests.application.load;
+
+import java.time.Duration;
+
+/**
+ * Closed-loop load: {@code concurrency} threads call the operation back to back, first for
+ * {@code warmup} without recording, then for {@code duration}.
+ */
+public record LoadProfile(int concurrency, Duration warmup, Duration duration) {
+
+   /**
+    * Reads {@code load.concurrency}, {@code load.warmup} and {@code load.duration} (ISO-8601 or
+    * seconds) system properties, falling back to the given defaults.
+    */
+   public static LoadProfile fromSystemProperties(int concurrency, Duration warmup, Duration duration) {
+      return new LoadProfile(Integer.getInteger("load.concurrency", concurrency),
+            duration("load.warmup", warmup),
+            duration("load.duration", duration));
+   }
+
+   private static Duration duration(String property, Duration defaultValue) {
+      String value = System.getProperty(property);
+      if (value == null) {
+         return defaultValue;
+      }
+      return value.startsWith("P") ? Duration.parse(value) : Duration.ofSeconds(Long.parseLong(value));
+   }
+}
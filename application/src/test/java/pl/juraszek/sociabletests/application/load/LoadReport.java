@@ -0,0 +1,26 @@
+package pl.juraszek.sociabletests.application.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+public record LoadReport(String name, LoadProfile profile, long operations, long errors, Duration elapsed,
+                         Histogram latencies) {
+
+   public double throughput() {
+      return operations / (elapsed.toNanos() / 1e9);
+   }
+
+   public double percentileMillis(double percentile) {
+      return latencies.getValueAtPercentile(percentile) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+   }
+
+   public void print(PrintStream output) {
+      output.printf("%s: %d ops (%d errors) with %d threads in %d ms, %.0f ops/s, "
+                  + "p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms%n",
+            name, operations, errors, profile.concurrency(), elapsed.toMillis(), throughput(),
+            percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(99.9), percentileMillis(100));
+   }
+}
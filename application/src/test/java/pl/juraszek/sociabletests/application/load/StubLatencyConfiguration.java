@@ -0,0 +1,55 @@
+package pl.juraszek.sociabletests.application.load;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import pl.juraszek.sociabletests.domain.client.ClientProvider;
+import pl.juraszek.sociabletests.domain.order.OrderRepository;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+
+/**
+ * Delays every call of the client provider and the order repository by
+ * {@code load.latency.client-provider} (2ms by default) and {@code load.latency.order-repository}
+ * (5ms by default), so load runs on stubs see latencies close to real adapters.
+ */
+@ConditionalOnProperty(prefix = "load.latency", name = "enabled", havingValue = "true")
+@Configuration
+public class StubLatencyConfiguration {
+
+   @Bean
+   public static BeanPostProcessor stubLatencyPostProcessor(Environment environment) {
+      return new BeanPostProcessor() {
+         @Override
+         public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof ClientProvider) {
+               return delayed(bean, ClientProvider.class, environment.getProperty("load.latency.client-provider", Duration.class, Duration.ofMillis(2)));
+            }
+            if (bean instanceof OrderRepository) {
+               return delayed(bean, OrderRepository.class, environment.getProperty("load.latency.order-repository", Duration.class, Duration.ofMillis(5)));
+            }
+            return bean;
+         }
+      };
+   }
+
+   private static Object delayed(Object target, Class<?> port, Duration latency) {
+      if (latency.isZero()) {
+         return target;
+      }
+      return Proxy.newProxyInstance(port.getClassLoader(), new Class<?>[] { port }, (proxy, method, args) -> {
+         if (method.getDeclaringClass() != Object.class) {
+            Thread.sleep(latency.toMillis(), latency.toNanosPart() % 1_000_000);
+         }
+         try {
+            return method.invoke(target, args);
+         } catch (InvocationTargetException e) {
+            throw e.getCause();
+         }
+      });
+   }
+}
@@ -0,0 +1,71 @@
+package pl.juraszek.sociabletests.application.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderJournalTest {
+
+   private static final int HEADER = Integer.BYTES + Long.BYTES;
+
+   @TempDir
+   private Path directory;
+
+   @Test
+   void shouldReuseFlushedSpaceBeforeTheWholeJournalIsFlushed() throws Exception {
+      // given
+      List<Order> orders = IntStream.range(0, 4).mapToObj(i -> order()).toList();
+      int recordSize = recordSize(orders.get(0));
+      OrderJournal journal = new OrderJournal(directory.resolve("orders.journal"), HEADER + 3 * recordSize + Integer.BYTES, false);
+      long first = journal.append(orders.get(0));
+      long second = journal.append(orders.get(1));
+      journal.append(orders.get(2));
+
+      // when
+      CompletableFuture<Long> blocked = CompletableFuture.supplyAsync(() -> append(journal, orders.get(3)));
+      Thread.sleep(100);
+      boolean waitedWhileFull = !blocked.isDone();
+      journal.markFlushed(first);
+      Thread.sleep(100);
+      boolean waitedForTerminator = !blocked.isDone();
+      journal.markFlushed(second);
+      blocked.get(5, TimeUnit.SECONDS);
+      journal.close();
+      OrderJournal reopened = new OrderJournal(directory.resolve("orders.journal"), HEADER + 3 * recordSize + Integer.BYTES, false);
+
+      // then
+      assertThat(waitedWhileFull).isTrue();
+      assertThat(waitedForTerminator).isTrue();
+      assertThat(reopened.replay()).containsExactly(orders.get(2), orders.get(3));
+      reopened.close();
+   }
+
+   private int recordSize(Order order) throws Exception {
+      try (OrderJournal journal = new OrderJournal(directory.resolve("probe.journal"), 1 << 16, false)) {
+         return (int) journal.append(order) - HEADER;
+      }
+   }
+
+   private long append(OrderJournal journal, Order order) {
+      try {
+         return journal.append(order);
+      } catch (InterruptedException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   private Order order() {
+      Order order = Order.init("john_doe");
+      order.add(new Product("product_1", 1));
+      return order;
+   }
+}
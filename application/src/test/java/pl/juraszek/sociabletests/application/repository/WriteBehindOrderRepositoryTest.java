@@ -0,0 +1,157 @@
+package pl.juraszek.sociabletests.application.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.OrderRepositoryStub;
+import pl.juraszek.sociabletests.domain.order.event.OrderEvent;
+import pl.juraszek.sociabletests.domain.order.event.OrderRejected;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteBehindOrderRepositoryTest {
+
+   @TempDir
+   private Path directory;
+
+   @Test
+   void shouldFlushSavedOrdersInBackground() throws Exception {
+      // given
+      RecordingRepository delegate = new RecordingRepository();
+      WriteBehindOrderRepository repository = new WriteBehindOrderRepository(delegate, properties(), new SimpleMeterRegistry());
+      List<Order> orders = orders(100);
+
+      // when
+      repository.saveAll(orders);
+      Order found = repository.findById(orders.get(99).getId()).orElseThrow();
+      repository.close();
+
+      // then
+      assertThat(found).isEqualTo(orders.get(99));
+      assertThat(delegate.saved).containsExactlyElementsOf(orders);
+   }
+
+   @Test
+   void shouldReplayJournalOfOrdersNotFlushedBeforeCrash() throws Exception {
+      // given
+      RecordingRepository unavailable = new RecordingRepository();
+      unavailable.failing = true;
+      WriteBehindOrderRepository crashed = new WriteBehindOrderRepository(unavailable, properties(), new SimpleMeterRegistry());
+      List<Order> orders = orders(10);
+      crashed.saveAll(orders);
+      crashed.close();
+
+      // when
+      RecordingRepository recovered = new RecordingRepository();
+      WriteBehindOrderRepository restarted = new WriteBehindOrderRepository(recovered, properties(), new SimpleMeterRegistry());
+      restarted.close();
+
+      // then
+      assertThat(unavailable.saved).isEmpty();
+      assertThat(recovered.saved).containsExactlyElementsOf(orders);
+   }
+
+   @Test
+   void shouldReplayEventsOfOrdersNotFlushedBeforeCrash() throws Exception {
+      // given
+      RecordingRepository unavailable = new RecordingRepository();
+      unavailable.failing = true;
+      WriteBehindOrderRepository crashed = new WriteBehindOrderRepository(unavailable, properties(), new SimpleMeterRegistry());
+      List<Order> orders = orders(3);
+      orders.forEach(Order::reject);
+      crashed.saveAll(orders);
+      crashed.close();
+
+      // when
+      RecordingRepository recovered = new RecordingRepository();
+      WriteBehindOrderRepository restarted = new WriteBehindOrderRepository(recovered, properties(), new SimpleMeterRegistry());
+      restarted.close();
+
+      // then
+      assertThat(recovered.events).hasSize(3).allMatch(OrderRejected.class::isInstance);
+      assertThat(recovered.events).extracting(OrderEvent::orderId)
+            .containsExactlyElementsOf(orders.stream().map(Order::getId).toList());
+   }
+
+   @Test
+   void shouldBlockSavesWhileQueueIsFull() throws Exception {
+      // given
+      RecordingRepository delegate = new RecordingRepository();
+      delegate.release = new CountDownLatch(1);
+      WriteBehindOrderRepository repository = new WriteBehindOrderRepository(delegate,
+            new WriteBehindProperties(true, directory.resolve("orders.journal"), DataSize.ofKilobytes(64), false, 1, 1,
+                  Duration.ofMillis(20)), new SimpleMeterRegistry());
+      List<Order> orders = orders(3);
+      repository.save(orders.get(0));
+      assertThat(delegate.entered.await(5, TimeUnit.SECONDS)).isTrue();
+      repository.save(orders.get(1));
+
+      // when
+      CompletableFuture<Order> blocked = CompletableFuture.supplyAsync(() -> repository.save(orders.get(2)));
+      Thread.sleep(100);
+      boolean waitedWhileFull = !blocked.isDone();
+      delegate.release.countDown();
+      blocked.get(5, TimeUnit.SECONDS);
+      repository.close();
+
+      // then
+      assertThat(waitedWhileFull).isTrue();
+      assertThat(delegate.saved).containsExactlyElementsOf(orders);
+   }
+
+   private WriteBehindProperties properties() {
+      return new WriteBehindProperties(true, directory.resolve("orders.journal"), DataSize.ofKilobytes(64), false, 16, 8,
+            Duration.ofMillis(20));
+   }
+
+   private List<Order> orders(int count) {
+      return IntStream.range(0, count).mapToObj(i -> {
+         Order order = Order.init("client_" + i % 3);
+         order.add(new Product("product_" + i, i + 1));
+         return order;
+      }).toList();
+   }
+
+   private static class RecordingRepository extends OrderRepositoryStub {
+      private final List<Order> saved = new CopyOnWriteArrayList<>();
+      private final List<OrderEvent> events = new CopyOnWriteArrayList<>();
+      private final CountDownLatch entered = new CountDownLatch(1);
+      private volatile CountDownLatch release = new CountDownLatch(0);
+      private volatile boolean failing;
+
+      @Override
+      public List<Order> saveAll(List<Order> orders) {
+         if (failing) {
+            throw new IllegalStateException("Database unavailable");
+         }
+         entered.countDown();
+         try {
+            release.await();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+         }
+         orders.forEach(order -> events.addAll(order.pullEvents()));
+         saved.addAll(orders);
+         return orders;
+      }
+
+      @Override
+      public Optional<Order> findById(String id) {
+         return saved.stream().filter(order -> order.getId().equals(id)).findFirst();
+      }
+   }
+}
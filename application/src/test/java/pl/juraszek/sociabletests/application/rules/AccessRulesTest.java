@@ -0,0 +1,148 @@
+package pl.juraszek.sociabletests.application.rules;
+
+import io.vavr.control.Either;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.juraszek.sociabletests.domain.client.Client;
+import pl.juraszek.sociabletests.domain.order.access.OrderAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessException;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.access.VerdictCache;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalogStub;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AccessRulesTest {
+
+   private static final String PREMIUM_RULE = """
+         rules:
+           - name: premium-products
+             deny-when:
+               all:
+                 - premium: true
+                 - client-premium: false
+             message: Premium product {product} requires a premium subscription
+         """;
+
+   private static final String BULK_RULE = """
+         {"rules": [{"name": "bulk", "deny-when": {"any": [{"amount-above": 100}, {"client": ["blocked"]}]}}]}
+         """;
+
+   private final Client regularClient = new Client("john_doe", false);
+
+   @TempDir
+   private Path directory;
+
+   @Test
+   void shouldCheckProductsWithCompiledRules() throws Exception {
+      // given
+      Path rules = write(directory.resolve("rules.yaml"), PREMIUM_RULE, Instant.now());
+      OrderAccessPolicy orderAccessPolicy = new OrderAccessPolicy(List.of());
+
+      // when
+      try (AccessRules accessRules = accessRules(rules, orderAccessPolicy)) {
+
+         // then
+         assertThat(accessRules.ruleCount()).isEqualTo(1);
+         assertThat(orderAccessPolicy.check(new Product("premium_1", 1), regularClient).getLeft().getExceptions())
+               .extracting(ProductAccessException::getMessage)
+               .containsExactly("Premium product premium_1 requires a premium subscription");
+         assertThat(orderAccessPolicy.check(new Product("premium_1", 1), new Client("jane_doe", true)).isRight()).isTrue();
+         assertThat(orderAccessPolicy.check(new Product("product_1", 1), regularClient).isRight()).isTrue();
+      }
+   }
+
+   @Test
+   void shouldSwapRulesOnReloadAndKeepBeanPolicies() throws Exception {
+      // given
+      Path rules = write(directory.resolve("rules.json"), PREMIUM_RULE, Instant.now().minus(Duration.ofMinutes(1)));
+      ProductAccessPolicy beanPolicy = (product, client) -> product.productId().equals("banned")
+            ? Either.left(new ProductAccessException("Banned", product.productId()))
+            : ProductAccessPolicy.ACCESS_GRANTED;
+      OrderAccessPolicy orderAccessPolicy = new OrderAccessPolicy(List.of(beanPolicy));
+
+      try (AccessRules accessRules = accessRules(rules, orderAccessPolicy, beanPolicy)) {
+         long version = orderAccessPolicy.version();
+
+         // when
+         write(rules, BULK_RULE, Instant.now());
+         accessRules.reloadIfModified();
+
+         // then
+         assertThat(orderAccessPolicy.version()).isGreaterThan(version);
+         assertThat(orderAccessPolicy.check(new Product("premium_1", 1), regularClient).isRight()).isTrue();
+         assertThat(orderAccessPolicy.check(new Product("product_1", 101), regularClient).isLeft()).isTrue();
+         assertThat(orderAccessPolicy.check(new Product("product_1", 1), new Client("blocked", true)).isLeft()).isTrue();
+         assertThat(orderAccessPolicy.check(new Product("banned", 1), regularClient).isLeft()).isTrue();
+      }
+   }
+
+   @Test
+   void shouldKeepPreviousRulesWhenReloadedFileIsInvalid() throws Exception {
+      // given
+      Path rules = write(directory.resolve("rules.yaml"), PREMIUM_RULE, Instant.now().minus(Duration.ofMinutes(1)));
+      OrderAccessPolicy orderAccessPolicy = new OrderAccessPolicy(List.of());
+
+      try (AccessRules accessRules = accessRules(rules, orderAccessPolicy)) {
+
+         // when
+         write(rules, "rules: [{name: broken, deny-when: {colour: red}}]", Instant.now());
+         accessRules.reloadIfModified();
+
+         // then
+         assertThat(accessRules.ruleCount()).isEqualTo(1);
+         assertThat(orderAccessPolicy.check(new Product("premium_1", 1), regularClient).isLeft()).isTrue();
+         assertThatThrownBy(() -> new AccessRuleCompiler(new ProductCatalogStub())
+               .compile(Map.of("rules", List.of(Map.of("name", "broken", "deny-when", Map.of("colour", "red"))))))
+               .isInstanceOf(IllegalArgumentException.class)
+               .hasMessage("Invalid access rule broken: Unknown condition colour");
+      }
+   }
+
+   @Test
+   void shouldNotShareCachedRejectionsNamingTheClient() throws Exception {
+      // given
+      Path rules = write(directory.resolve("rules.yaml"), """
+            rules:
+              - name: no-premium
+                deny-when:
+                  premium: true
+            """, Instant.now());
+      OrderAccessPolicy orderAccessPolicy = new OrderAccessPolicy(List.of(), false, null, Integer.MAX_VALUE,
+            new VerdictCache(100, Duration.ofMinutes(1)));
+
+      try (AccessRules accessRules = accessRules(rules, orderAccessPolicy)) {
+
+         // when
+         var johnResult = orderAccessPolicy.check(new Product("premium_1", 1), regularClient);
+         var janeResult = orderAccessPolicy.check(new Product("premium_1", 1), new Client("jane_doe", false));
+
+         // then
+         assertThat(johnResult.getLeft().getExceptions()).extracting(ProductAccessException::getMessage)
+               .containsExactly("Product premium_1 is not available for client john_doe");
+         assertThat(janeResult.getLeft().getExceptions()).extracting(ProductAccessException::getMessage)
+               .containsExactly("Product premium_1 is not available for client jane_doe");
+      }
+   }
+
+   private AccessRules accessRules(Path rules, OrderAccessPolicy orderAccessPolicy, ProductAccessPolicy... beanPolicies) {
+      return new AccessRules(new AccessRulesProperties(rules, Duration.ofHours(1)), new AccessRuleCompiler(new ProductCatalogStub()),
+            orderAccessPolicy, List.of(beanPolicies));
+   }
+
+   private Path write(Path path, String content, Instant modified) throws Exception {
+      Files.writeString(path, content);
+      Files.setLastModifiedTime(path, FileTime.from(modified));
+      return path;
+   }
+}
@@ -0,0 +1,56 @@
+package pl.juraszek.sociabletests.application.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import pl.juraszek.sociabletests.application.SociableDomainTest;
+import pl.juraszek.sociabletests.domain.client.ClientAccessException;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SociableDomainTest
+class AsyncOrderServiceTest {
+
+   @Autowired
+   private AsyncOrderService asyncOrderService;
+
+   @Test
+   void shouldPlaceOrderAsynchronously() {
+      //   given
+      List<Product> products = List.of(new Product("premium_1", 1));
+
+      //      when
+      Order order = asyncOrderService.placeOrderAsync(products, "jane_doe").join();
+
+      //      then
+      assertThat(order.getStatus()).isEqualTo(Order.Status.PLACED);
+   }
+
+   @Test
+   void shouldRejectOrderAsynchronouslyWhenProductNotAccessible() {
+      //   given
+      List<Product> products = List.of(new Product("premium_1", 1));
+
+      //      when
+      Order order = asyncOrderService.placeOrderAsync(products, "john_doe").join();
+
+      //      then
+      assertThat(order.getStatus()).isEqualTo(Order.Status.REJECTED);
+   }
+
+   @Test
+   void shouldFailWhenClientNotExists() {
+      //   given
+      List<Product> products = List.of(new Product("basic", 1));
+
+      //      when
+      assertThatThrownBy(() -> asyncOrderService.placeOrderAsync(products, "none").join())
+            .isInstanceOf(CompletionException.class)
+            .hasCauseInstanceOf(ClientAccessException.class);
+   }
+}
@@ -0,0 +1,76 @@
+package pl.juraszek.sociabletests.application.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import pl.juraszek.sociabletests.application.SociableDomainTest;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SociableDomainTest
+class IdempotentOrderServiceTest {
+
+   @Autowired
+   private IdempotentOrderService idempotentOrderService;
+
+   @Test
+   void shouldReturnSameOrderForRepeatedKey() {
+      //   given
+      List<Product> products = List.of(new Product("premium_1", 1));
+      Order first = idempotentOrderService.placeOrder("retry-1", products, "jane_doe");
+
+      //      when
+      Order retried = idempotentOrderService.placeOrder("retry-1", products, "jane_doe");
+
+      //      then
+      assertThat(retried.getId()).isEqualTo(first.getId());
+      assertThat(retried.getStatus()).isEqualTo(Order.Status.PLACED);
+   }
+
+   @Test
+   void shouldPlaceConcurrentDuplicatesOnce() {
+      //   given
+      List<Product> products = List.of(new Product("basic", 2));
+
+      //      when
+      List<Order> orders = IntStream.range(0, 16)
+            .mapToObj(i -> CompletableFuture.supplyAsync(() -> idempotentOrderService.placeOrder("retry-2", products, "john_doe")))
+            .toList()
+            .stream()
+            .map(CompletableFuture::join)
+            .toList();
+
+      //      then
+      assertThat(orders).extracting(Order::getId).containsOnly(orders.get(0).getId());
+   }
+
+   @Test
+   void shouldScopeKeysByClient() {
+      //   given
+      List<Product> products = List.of(new Product("basic", 1));
+      Order janeOrder = idempotentOrderService.placeOrder("retry-3", products, "jane_doe");
+
+      //      when
+      Order johnOrder = idempotentOrderService.placeOrder("retry-3", products, "john_doe");
+
+      //      then
+      assertThat(johnOrder.getId()).isNotEqualTo(janeOrder.getId());
+      assertThat(johnOrder.getClientId()).isEqualTo("john_doe");
+   }
+
+   @Test
+   void shouldRejectKeyReusedForDifferentProducts() {
+      //   given
+      idempotentOrderService.placeOrder("retry-4", List.of(new Product("basic", 1)), "jane_doe");
+
+      //      when
+      assertThatThrownBy(() -> idempotentOrderService.placeOrder("retry-4", List.of(new Product("basic", 2)), "jane_doe"))
+            .isInstanceOf(IdempotencyKeyReusedException.class);
+   }
+}
@@ -0,0 +1,46 @@
+package pl.juraszek.sociabletests.application.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import pl.juraszek.sociabletests.application.SociableDomainTest;
+import pl.juraszek.sociabletests.application.load.LoadGenerator;
+import pl.juraszek.sociabletests.application.load.LoadProfile;
+import pl.juraszek.sociabletests.application.load.LoadReport;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Service level load run on the sociable test context, enabled with {@code -Dload.enabled=true}.
+ * Stub latencies can be changed with {@code -Dload.latency.client-provider} and
+ * {@code -Dload.latency.order-repository}, load with {@link LoadProfile} system properties.
+ */
+@SociableDomainTest
+@EnabledIfSystemProperty(named = "load.enabled", matches = "true")
+@TestPropertySource(properties = "load.latency.enabled=true")
+class OrderServiceLoadTest {
+
+   @Autowired
+   private OrderService orderService;
+
+   @Test
+   void shouldPlaceOrdersUnderLoad() throws InterruptedException {
+      //   given
+      LoadProfile profile = LoadProfile.fromSystemProperties(32, Duration.ofSeconds(5), Duration.ofSeconds(20));
+      List<Product> products = List.of(new Product("basic", 1), new Product("premium_1", 2));
+
+      //      when
+      LoadReport report = LoadGenerator.run("OrderService.placeOrder", profile,
+            () -> orderService.placeOrder(products, "jane_doe"));
+
+      //      then
+      report.print(System.out);
+      assertThat(report.errors()).isZero();
+      assertThat(report.operations()).isPositive();
+   }
+}
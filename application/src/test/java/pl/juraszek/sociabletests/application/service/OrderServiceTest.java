@@ -1,5 +1,6 @@
 package pl.juraszek.sociabletests.application.service;
 
+import io.vavr.control.Either;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import pl.juraszek.sociabletests.application.SociableDomainTest;
@@ -66,4 +67,25 @@ class OrderServiceTest {
       assertThat(order.getId()).isNotBlank();
       assertThat(order.getStatus()).isEqualTo(Order.Status.REJECTED);
    }
+
+   @Test
+   void shouldPlaceBatchOfOrdersWithResultPerOrder() {
+      //   given
+      List<OrderRequest> requests = List.of(
+            new OrderRequest(List.of(new Product("basic", 1)), "john_doe"),
+            new OrderRequest(List.of(new Product("premium_1", 1)), "john_doe"),
+            new OrderRequest(List.of(new Product("premium_1", 1)), "none"),
+            new OrderRequest(List.of(new Product("premium_2", 1)), "jane_doe"));
+
+      //      when
+      List<Either<ClientAccessException, Order>> results = orderService.placeOrders(requests);
+
+      //      then
+      assertThat(results).hasSize(4);
+      assertThat(results.get(0).get().getStatus()).isEqualTo(Order.Status.PLACED);
+      assertThat(results.get(1).get().getStatus()).isEqualTo(Order.Status.REJECTED);
+      assertThat(results.get(2).isLeft()).isTrue();
+      assertThat(results.get(3).get().getStatus()).isEqualTo(Order.Status.PLACED);
+      assertThat(results.get(3).get().getClientId()).isEqualTo("jane_doe");
+   }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package pl.juraszek.sociabletests.application.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PortBulkheadTest {
+
+   @Test
+   void shouldFreeSlotOfStalledPortAfterTimeout() throws Exception {
+      // given
+      PortBulkhead bulkhead = new PortBulkhead("stalled-port", new AsyncOrderProperties.Bulkhead(Duration.ofMillis(50), 1, 1));
+      CountDownLatch interrupted = new CountDownLatch(1);
+      CompletableFuture<String> stalled = bulkhead.call(() -> {
+         try {
+            Thread.sleep(Duration.ofMinutes(1).toMillis());
+         } catch (InterruptedException e) {
+            interrupted.countDown();
+         }
+         return "stalled";
+      });
+
+      // when
+      boolean wasInterrupted = interrupted.await(5, TimeUnit.SECONDS);
+      CompletableFuture<String> next = bulkhead.call(() -> "next");
+
+      // then
+      assertThat(wasInterrupted).isTrue();
+      assertThatThrownBy(() -> stalled.get(5, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(TimeoutException.class);
+      assertThat(next.get(5, TimeUnit.SECONDS)).isEqualTo("next");
+      bulkhead.close();
+   }
+
+   @Test
+   void shouldLetRunningCallFinishAfterTimeoutWhenNotInterrupting() throws Exception {
+      // given
+      PortBulkhead bulkhead = new PortBulkhead("saving-port", new AsyncOrderProperties.Bulkhead(Duration.ofMillis(50), 1, 1), false);
+      CountDownLatch release = new CountDownLatch(1);
+      CountDownLatch finished = new CountDownLatch(1);
+      CompletableFuture<String> slow = bulkhead.call(() -> {
+         try {
+            release.await();
+            finished.countDown();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+         return "saved";
+      });
+
+      // when
+      Throwable failure = slow.handle((value, e) -> e).get(5, TimeUnit.SECONDS);
+      release.countDown();
+
+      // then
+      assertThat(failure).isInstanceOf(TimeoutException.class);
+      assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+      bulkhead.close();
+   }
+}
@@ -0,0 +1,56 @@
+package pl.juraszek.sociabletests.application.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import pl.juraszek.sociabletests.domain.client.ClientProviderStub;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.OrderRepositoryStub;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(OutputCaptureExtension.class)
+class SlowOrderSamplerTest {
+
+   @Test
+   void shouldLogStageBreakdownOfSlowRequest(CapturedOutput output) {
+      // given
+      ObservationRegistry registry = registry(Duration.ofNanos(1));
+      ObservedClientProvider clientProvider = new ObservedClientProvider(new ClientProviderStub(), registry);
+      ObservedOrderRepository orderRepository = new ObservedOrderRepository(new OrderRepositoryStub(), registry);
+
+      // when
+      Observation.createNotStarted("http.server.requests", registry).contextualName("POST /api/orders").observe(() -> {
+         clientProvider.fetchClient("john_doe");
+         orderRepository.save(Order.init("john_doe"));
+      });
+
+      // then
+      assertThat(output).contains("Slow request POST /api/orders took")
+            .containsPattern("order\\.client\\.fetch=[0-9.]+ ms, order\\.repository\\.save=[0-9.]+ ms");
+   }
+
+   @Test
+   void shouldNotLogRequestBelowThreshold(CapturedOutput output) {
+      // given
+      ObservationRegistry registry = registry(Duration.ofHours(1));
+      ObservedClientProvider clientProvider = new ObservedClientProvider(new ClientProviderStub(), registry);
+
+      // when
+      Observation.createNotStarted("http.server.requests", registry).observe(() -> clientProvider.fetchClient("john_doe"));
+
+      // then
+      assertThat(output).doesNotContain("Slow request");
+   }
+
+   private ObservationRegistry registry(Duration threshold) {
+      ObservationRegistry registry = ObservationRegistry.create();
+      registry.observationConfig().observationHandler(new SlowOrderSampler(threshold));
+      return registry;
+   }
+}
@@ -0,0 +1,30 @@
+package pl.juraszek.sociabletests.benchmark;
+
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class Baskets {
+
+   private Baskets() {
+   }
+
+   /**
+    * Deterministic basket where premium products are spread evenly according to the given ratio.
+    */
+   static List<Product> create(int size, double premiumRatio) {
+      List<Product> products = new ArrayList<>(size);
+      double premiumDebt = 0;
+      for (int i = 0; i < size; i++) {
+         premiumDebt += premiumRatio;
+         if (premiumDebt >= 1) {
+            premiumDebt -= 1;
+            products.add(new Product(i % 2 == 0 ? "premium_1" : "premium_2", i + 1));
+         } else {
+            products.add(new Product("product_" + i, i + 1));
+         }
+      }
+      return products;
+   }
+}
@@ -0,0 +1,70 @@
+package pl.juraszek.sociabletests.benchmark;
+
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.juraszek.sociabletests.domain.client.Client;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.access.OrderAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.access.PremiumProductPolicy;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessExceptions;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalogStub;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderAccessPolicyBenchmark {
+
+   @Param({ "10", "100", "1000" })
+   private int basketSize;
+
+   @Param({ "1", "4", "16" })
+   private int policies;
+
+   @Param({ "0.0", "0.1", "0.5" })
+   private double premiumRatio;
+
+   private final Client client = new Client("john_doe", false);
+   private final PremiumProductPolicy premiumProductPolicy = new PremiumProductPolicy(new ProductCatalogStub());
+   private OrderAccessPolicy orderAccessPolicy;
+   private Order order;
+
+   @Setup
+   public void setUp() {
+      List<ProductAccessPolicy> productPolicies = Collections.nCopies(policies, premiumProductPolicy);
+      orderAccessPolicy = new OrderAccessPolicy(productPolicies);
+      order = Order.init(client.name());
+      order.add(Baskets.create(basketSize, premiumRatio));
+   }
+
+   @Benchmark
+   public Either<ProductAccessExceptions, Boolean> orderAccessPolicyCheck() {
+      return orderAccessPolicy.check(order, client);
+   }
+
+   @Benchmark
+   public void premiumProductPolicyCheck(Blackhole blackhole) {
+      for (Product product : order.getProducts()) {
+         blackhole.consume(premiumProductPolicy.check(product, client));
+      }
+   }
+}
@@ -0,0 +1,54 @@
+package pl.juraszek.sociabletests.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBenchmark {
+
+   @Param({ "1", "10", "100", "1000" })
+   private int basketSize;
+
+   private List<Product> products;
+   private Order order;
+
+   @Setup
+   public void setUp() {
+      products = Baskets.create(basketSize, 0.1);
+      order = Order.init("john_doe");
+      order.add(products);
+   }
+
+   @Benchmark
+   public Order add() {
+      Order newOrder = Order.init("john_doe");
+      for (Product product : products) {
+         newOrder.add(product);
+      }
+      return newOrder;
+   }
+
+   @Benchmark
+   public String renderReport() {
+      return order.renderReport();
+   }
+}
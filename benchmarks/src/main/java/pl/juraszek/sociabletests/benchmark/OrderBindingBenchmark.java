@@ -0,0 +1,67 @@
+package pl.juraszek.sociabletests.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.juraszek.sociabletests.adapter.driver.dto.OrderDto;
+import pl.juraszek.sociabletests.adapter.driver.dto.ProductDto;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request side of an order placement without the service: binding the body and mapping products
+ * to the domain and back. {@code generic} is Jackson's record binding followed by stream
+ * mapping, as the controller did before; {@code streaming} is the current {@link OrderDto} path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBindingBenchmark {
+
+   @Param({ "10", "1000" })
+   private int basketSize;
+
+   private final ObjectMapper objectMapper = new ObjectMapper();
+   private byte[] body;
+
+   @Setup
+   public void setUp() throws IOException {
+      body = objectMapper.writeValueAsBytes(new GenericOrderDto(
+            Baskets.create(basketSize, 0.1).stream().map(product -> new GenericProductDto(product.productId(), product.amount())).toList(),
+            "john_doe"));
+   }
+
+   @Benchmark
+   public List<ProductDto> generic() throws IOException {
+      GenericOrderDto order = objectMapper.readValue(body, GenericOrderDto.class);
+      List<Product> products = order.products().stream().map(product -> new Product(product.productId(), product.amount())).toList();
+      return products.stream().map(ProductDto::of).toList();
+   }
+
+   @Benchmark
+   public List<ProductDto> streaming() throws IOException {
+      OrderDto order = objectMapper.readValue(body, OrderDto.class);
+      return ProductDto.of(ProductDto.convert(order.products()));
+   }
+
+   public record GenericOrderDto(List<GenericProductDto> products, String clientId) {
+   }
+
+   public record GenericProductDto(String productId, int amount) {
+   }
+}
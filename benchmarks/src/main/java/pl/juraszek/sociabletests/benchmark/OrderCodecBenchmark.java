@@ -0,0 +1,97 @@
+package pl.juraszek.sociabletests.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.juraszek.sociabletests.adapter.driver.dto.OrderDto;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.codec.OrderBinaryCodec;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary codec against the Jackson {@link OrderDto} path. Encoded sizes are reported as
+ * secondary results ({@code jsonBytes}, {@code binaryBytes}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderCodecBenchmark {
+
+   @Param({ "1", "10", "100", "1000" })
+   private int basketSize;
+
+   private final ObjectMapper objectMapper = new ObjectMapper();
+   private ObjectWriter jsonWriter;
+   private ObjectReader jsonReader;
+   private Order order;
+   private OrderDto orderDto;
+   private byte[] json;
+   private byte[] binary;
+
+   @Setup
+   public void setUp() throws JsonProcessingException {
+      order = Order.init("john_doe");
+      order.add(Baskets.create(basketSize, 0.1));
+      orderDto = OrderDto.of(order);
+      jsonWriter = objectMapper.writerFor(OrderDto.class);
+      jsonReader = objectMapper.readerFor(OrderDto.class);
+      json = jsonWriter.writeValueAsBytes(orderDto);
+      binary = OrderBinaryCodec.encode(order);
+   }
+
+   @Benchmark
+   public byte[] encodeJson(EncodedSize size) throws JsonProcessingException {
+      byte[] encoded = jsonWriter.writeValueAsBytes(OrderDto.of(order));
+      size.jsonBytes = encoded.length;
+      return encoded;
+   }
+
+   @Benchmark
+   public byte[] encodeBinary(EncodedSize size) {
+      byte[] encoded = OrderBinaryCodec.encode(order);
+      size.binaryBytes = encoded.length;
+      return encoded;
+   }
+
+   @Benchmark
+   public OrderDto decodeJson() throws IOException {
+      return jsonReader.readValue(json);
+   }
+
+   @Benchmark
+   public Order decodeBinary() {
+      return OrderBinaryCodec.decode(binary);
+   }
+
+   @State(Scope.Thread)
+   @AuxCounters(AuxCounters.Type.EVENTS)
+   public static class EncodedSize {
+      public long jsonBytes;
+      public long binaryBytes;
+
+      @Setup(Level.Iteration)
+      public void reset() {
+         jsonBytes = 0;
+         binaryBytes = 0;
+      }
+   }
+}
@@ -0,0 +1,59 @@
+package pl.juraszek.sociabletests.benchmark;
+
+import org.openjdk.jol.info.GraphLayout;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalog;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalogIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Retained heap of orders before and after they are rejected, measured with JOL. Product ids
+ * are fresh strings for every order, as they are when deserialized from a request. The last
+ * column restores the rejected orders with a catalog of all products, so their ids are shared
+ * with it. The catalog itself is not counted, it is retained anyway.
+ */
+public class OrderFootprint {
+
+   private static final int ORDERS = 10_000;
+   private static final int CATALOG_SIZE = 1000;
+
+   public static void main(String[] args) {
+      ProductCatalog catalog = catalog();
+      System.out.printf("%8s %16s %18s %17s %8s%n", "products", "new [B/order]", "compact [B/order]", "shared [B/order]", "ratio");
+      for (int basketSize : new int[]{1, 10, 100}) {
+         List<Order> active = orders(basketSize);
+         long activeSize = GraphLayout.parseInstance(active).totalSize() / ORDERS;
+         active.forEach(Order::reject);
+         long compactSize = GraphLayout.parseInstance(active).totalSize() / ORDERS;
+         List<Order> shared = active.stream()
+               .map(order -> Order.restore(order.getId(), order.getProducts(), order.getClientId(), order.getStatus(), catalog))
+               .toList();
+         long sharedSize = GraphLayout.parseInstance(shared).subtract(GraphLayout.parseInstance(catalog)).totalSize() / ORDERS;
+         System.out.printf("%8d %16d %18d %17d %8.2f%n", basketSize, activeSize, compactSize, sharedSize,
+               (double) activeSize / sharedSize);
+      }
+   }
+
+   private static ProductCatalog catalog() {
+      ProductCatalogIndex.Builder catalog = ProductCatalogIndex.builder();
+      for (int product = 0; product < CATALOG_SIZE; product++) {
+         catalog.add("product_" + product, false, null, false);
+      }
+      return catalog.build();
+   }
+
+   private static List<Order> orders(int basketSize) {
+      List<Order> orders = new ArrayList<>(ORDERS);
+      for (int i = 0; i < ORDERS; i++) {
+         Order order = Order.init("client_" + i % 100);
+         for (int line = 0; line < basketSize; line++) {
+            order.add(new Product(new String("product_" + (i + line) % CATALOG_SIZE), line + 1));
+         }
+         orders.add(order);
+      }
+      return orders;
+   }
+}
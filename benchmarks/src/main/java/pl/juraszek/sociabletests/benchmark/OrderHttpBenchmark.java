@@ -0,0 +1,88 @@
+package pl.juraszek.sociabletests.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import pl.juraszek.sociabletests.adapter.driver.dto.OrderDto;
+import pl.juraszek.sociabletests.adapter.driver.dto.ProductDto;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full POST /api/orders round trip against the controller running on the stub ports in the
+ * benchmark JVM. The {@code gc} profiler counts allocations of all threads, so
+ * {@code gc.alloc.rate.norm} is the allocation per request on both client and server side.
+ * Compare it between commits, the client part stays the same. Logging is at WARN to keep the
+ * console quiet, so request logging is not part of the figure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderHttpBenchmark {
+
+   @Param({ "10", "1000" })
+   private int basketSize;
+
+   private ConfigurableApplicationContext context;
+   private HttpClient client;
+   private HttpRequest request;
+
+   @Setup
+   public void setUp() throws IOException {
+      context = new SpringApplicationBuilder(OrderApplication.class)
+            .profiles("mock-client-service", "mock-order-repository", "mock-product-catalog")
+            .properties("server.port=0", "admission.enabled=false", "spring.main.banner-mode=off",
+                  "logging.level.root=WARN")
+            .run();
+      byte[] body = new ObjectMapper().writeValueAsBytes(
+            new OrderDto(null, ProductDto.of(Baskets.create(basketSize, 0.1)), "john_doe", null));
+      client = HttpClient.newHttpClient();
+      request = HttpRequest.newBuilder(URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/orders"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+   }
+
+   @TearDown
+   public void tearDown() {
+      context.close();
+   }
+
+   @Benchmark
+   public byte[] placeOrder() throws IOException, InterruptedException {
+      HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+      if (response.statusCode() != 200) {
+         throw new IllegalStateException(String.format("Order placement failed with status %s", response.statusCode()));
+      }
+      return response.body();
+   }
+
+   @SpringBootConfiguration
+   @EnableAutoConfiguration
+   @ComponentScan({ "pl.juraszek.sociabletests.application", "pl.juraszek.sociabletests.adapter.driver" })
+   static class OrderApplication {
+   }
+}
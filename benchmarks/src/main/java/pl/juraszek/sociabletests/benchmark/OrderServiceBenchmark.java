@@ -0,0 +1,57 @@
+package pl.juraszek.sociabletests.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.juraszek.sociabletests.application.service.OrderService;
+import pl.juraszek.sociabletests.domain.client.ClientProviderStub;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.OrderRepositoryStub;
+import pl.juraszek.sociabletests.domain.order.access.OrderAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.access.PremiumProductPolicy;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalogStub;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+   @Param({ "1", "10", "100", "1000" })
+   private int basketSize;
+
+   @Param({ "0.0", "0.1" })
+   private double premiumRatio;
+
+   @Param({ "john_doe", "jane_doe" })
+   private String clientId;
+
+   private OrderService orderService;
+   private List<Product> products;
+
+   @Setup
+   public void setUp() {
+      orderService = new OrderService(new ClientProviderStub(),
+            new OrderAccessPolicy(List.of(new PremiumProductPolicy(new ProductCatalogStub()))), new OrderRepositoryStub());
+      products = Baskets.create(basketSize, premiumRatio);
+   }
+
+   @Benchmark
+   public Order placeOrder() {
+      return orderService.placeOrder(products, clientId);
+   }
+}
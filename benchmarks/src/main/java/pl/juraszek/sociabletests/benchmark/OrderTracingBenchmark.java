@@ -0,0 +1,79 @@
+package pl.juraszek.sociabletests.benchmark;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.juraszek.sociabletests.application.service.OrderService;
+import pl.juraszek.sociabletests.application.tracing.ObservedClientProvider;
+import pl.juraszek.sociabletests.application.tracing.ObservedOrderRepository;
+import pl.juraszek.sociabletests.application.tracing.SlowOrderSampler;
+import pl.juraszek.sociabletests.domain.client.ClientProvider;
+import pl.juraszek.sociabletests.domain.client.ClientProviderStub;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.OrderRepository;
+import pl.juraszek.sociabletests.domain.order.OrderRepositoryStub;
+import pl.juraszek.sociabletests.domain.order.access.OrderAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.access.PremiumProductPolicy;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalogStub;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of order stage tracing on a placement: {@code disabled} is the service as wired with
+ * {@code order-tracing.enabled=false}, {@code sampler} observes every stage with only the slow
+ * request sampler attached and no request crossing its threshold.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderTracingBenchmark {
+
+   @Param({ "disabled", "sampler" })
+   private String tracing;
+
+   @Param({ "1", "10" })
+   private int basketSize;
+
+   private ObservationRegistry registry;
+   private OrderService orderService;
+   private List<Product> products;
+
+   @Setup
+   public void setUp() {
+      ClientProvider clientProvider = new ClientProviderStub();
+      OrderRepository orderRepository = new OrderRepositoryStub();
+      registry = ObservationRegistry.NOOP;
+      if (tracing.equals("sampler")) {
+         registry = ObservationRegistry.create();
+         registry.observationConfig().observationHandler(new SlowOrderSampler(Duration.ofSeconds(1)));
+         clientProvider = new ObservedClientProvider(clientProvider, registry);
+         orderRepository = new ObservedOrderRepository(orderRepository, registry);
+      }
+      orderService = new OrderService(clientProvider,
+            new OrderAccessPolicy(List.of(new PremiumProductPolicy(new ProductCatalogStub()))), orderRepository);
+      orderService.setObservationRegistry(registry);
+      products = Baskets.create(basketSize, 0.1);
+   }
+
+   @Benchmark
+   public Order placeOrder() {
+      return Observation.createNotStarted("http.server.requests", registry)
+            .observe(() -> orderService.placeOrder(products, "john_doe"));
+   }
+}
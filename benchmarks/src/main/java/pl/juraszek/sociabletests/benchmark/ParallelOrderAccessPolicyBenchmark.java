@@ -0,0 +1,78 @@
+package pl.juraszek.sociabletests.benchmark;
+
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.juraszek.sociabletests.domain.client.Client;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.access.OrderAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.access.PremiumProductPolicy;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessExceptions;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalogStub;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequential against fork/join check of the same basket. The smallest basket size where
+ * {@code parallel} beats {@code sequential} is the crossover point to use as
+ * {@code order-access.parallel-threshold} on the target machine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelOrderAccessPolicyBenchmark {
+
+   @Param({ "256", "1024", "2048", "4096", "16384", "65536" })
+   private int basketSize;
+
+   @Param({ "1", "16" })
+   private int policies;
+
+   private final Client client = new Client("john_doe", false);
+   private ForkJoinPool pool;
+   private OrderAccessPolicy sequential;
+   private OrderAccessPolicy parallel;
+   private Order order;
+
+   @Setup
+   public void setUp() {
+      List<ProductAccessPolicy> productPolicies = Collections.nCopies(policies, new PremiumProductPolicy(new ProductCatalogStub()));
+      pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+      sequential = new OrderAccessPolicy(productPolicies);
+      parallel = new OrderAccessPolicy(productPolicies, false, pool, 0);
+      order = Order.init(client.name());
+      order.add(Baskets.create(basketSize, 0.1));
+   }
+
+   @TearDown
+   public void tearDown() {
+      pool.shutdown();
+   }
+
+   @Benchmark
+   public Either<ProductAccessExceptions, Boolean> sequential() {
+      return sequential.check(order, client);
+   }
+
+   @Benchmark
+   public Either<ProductAccessExceptions, Boolean> parallel() {
+      return parallel.check(order, client);
+   }
+}
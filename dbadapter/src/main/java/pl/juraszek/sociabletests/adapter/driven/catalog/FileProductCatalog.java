@@ -0,0 +1,162 @@
+package pl.juraszek.sociabletests.adapter.driven.catalog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalog;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalogIndex;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Product catalog loaded from a csv file with {@code productId,premium,region,ageRestricted} rows,
+ * optionally preceded by exactly that header. The file is polled for changes and a modified file
+ * is loaded into a new index, which replaces the previous one in a single reference swap. Lookups
+ * always see a complete snapshot.
+ * <p>
+ * Every row has to have four columns, a product id and {@code true} or {@code false} flags. A
+ * file with a malformed row fails to load with the number of the line, on reload the previous
+ * snapshot is kept and the failure is logged once per modification of the file.
+ */
+@Slf4j
+public class FileProductCatalog implements ProductCatalog, AutoCloseable {
+
+   private static final String[] HEADER = {"productId", "premium", "region", "ageRestricted"};
+
+   private final Path path;
+   private final AtomicReference<Snapshot> snapshot;
+   private final ScheduledExecutorService reloader;
+   private FileTime failedModified;
+
+   public FileProductCatalog(FileProductCatalogProperties properties) {
+      this.path = properties.path();
+      this.snapshot = new AtomicReference<>(load(0));
+      this.reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+         Thread thread = new Thread(runnable, "product-catalog-reloader");
+         thread.setDaemon(true);
+         return thread;
+      });
+      long interval = properties.reloadInterval().toMillis();
+      reloader.scheduleWithFixedDelay(this::reloadIfModified, interval, interval, TimeUnit.MILLISECONDS);
+   }
+
+   @Override
+   public boolean isPremium(@NonNull String productId) {
+      return snapshot.get().index().isPremium(productId);
+   }
+
+   @Override
+   public boolean isAgeRestricted(@NonNull String productId) {
+      return snapshot.get().index().isAgeRestricted(productId);
+   }
+
+   @Override
+   public @NonNull Optional<String> region(@NonNull String productId) {
+      return snapshot.get().index().region(productId);
+   }
+
+   @Override
+   public @NonNull String canonicalId(@NonNull String productId) {
+      return snapshot.get().index().canonicalId(productId);
+   }
+
+   @Override
+   public long version() {
+      return snapshot.get().version();
+   }
+
+   public synchronized void reloadIfModified() {
+      FileTime modified = null;
+      try {
+         Snapshot current = snapshot.get();
+         modified = lastModified();
+         if (!modified.equals(current.modified()) && !modified.equals(failedModified)) {
+            Snapshot reloaded = load(current.version() + 1);
+            snapshot.set(reloaded);
+            failedModified = null;
+            log.info("Reloaded product catalog {} with {} products", path, reloaded.index().size());
+         }
+      } catch (RuntimeException e) {
+         failedModified = modified;
+         log.error("Failed to reload product catalog {}, keeping previous snapshot", path, e);
+      }
+   }
+
+   @Override
+   public void close() {
+      reloader.shutdownNow();
+   }
+
+   private Snapshot load(long version) {
+      FileTime modified = lastModified();
+      ProductCatalogIndex.Builder index = ProductCatalogIndex.builder();
+      try (BufferedReader reader = Files.newBufferedReader(path)) {
+         String line;
+         boolean first = true;
+         for (int number = 1; (line = reader.readLine()) != null; number++) {
+            if (line.isBlank()) {
+               continue;
+            }
+            String[] columns = line.split(",", -1);
+            for (int column = 0; column < columns.length; column++) {
+               columns[column] = columns[column].strip();
+            }
+            if (!(first && Arrays.equals(columns, HEADER))) {
+               addRow(index, columns, number);
+            }
+            first = false;
+         }
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+      return new Snapshot(index.build(), modified, version);
+   }
+
+   private void addRow(ProductCatalogIndex.Builder index, String[] columns, int number) {
+      if (columns.length != HEADER.length) {
+         throw malformedRow(number, String.format("expected %s columns but found %s", HEADER.length, columns.length));
+      }
+      if (columns[0].isEmpty()) {
+         throw malformedRow(number, "product id is empty");
+      }
+      boolean premium = flag(columns[1], number);
+      boolean ageRestricted = flag(columns[3], number);
+      try {
+         index.add(columns[0], premium, columns[2], ageRestricted);
+      } catch (IllegalArgumentException e) {
+         throw malformedRow(number, e.getMessage());
+      }
+   }
+
+   private boolean flag(String value, int number) {
+      if (!value.equals("true") && !value.equals("false")) {
+         throw malformedRow(number, String.format("expected true or false but found '%s'", value));
+      }
+      return Boolean.parseBoolean(value);
+   }
+
+   private IllegalArgumentException malformedRow(int number, String reason) {
+      return new IllegalArgumentException(String.format("Malformed row at line %s of product catalog %s: %s", number, path, reason));
+   }
+
+   private FileTime lastModified() {
+      try {
+         return Files.getLastModifiedTime(path);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   private record Snapshot(ProductCatalogIndex index, FileTime modified, long version) {
+   }
+}
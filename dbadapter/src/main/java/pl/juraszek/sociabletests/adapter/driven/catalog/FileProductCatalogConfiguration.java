@@ -0,0 +1,18 @@
+package pl.juraszek.sociabletests.adapter.driven.catalog;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalog;
+
+@Profile("file-product-catalog")
+@Configuration
+@EnableConfigurationProperties(FileProductCatalogProperties.class)
+public class FileProductCatalogConfiguration {
+
+   @Bean
+   public ProductCatalog productCatalog(FileProductCatalogProperties properties) {
+      return new FileProductCatalog(properties);
+   }
+}
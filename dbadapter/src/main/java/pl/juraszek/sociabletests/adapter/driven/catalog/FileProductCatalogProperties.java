@@ -0,0 +1,12 @@
+package pl.juraszek.sociabletests.adapter.driven.catalog;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "product-catalog.file")
+public record FileProductCatalogProperties(@DefaultValue("products.csv") Path path,
+                                           @DefaultValue("30s") Duration reloadInterval) {
+}
@@ -0,0 +1,18 @@
+package pl.juraszek.sociabletests.adapter.driven.idempotency;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import pl.juraszek.sociabletests.domain.order.IdempotencyKeyStore;
+
+@Profile("file-idempotency-store")
+@Configuration
+@EnableConfigurationProperties(FileIdempotencyKeyStoreProperties.class)
+public class FileIdempotencyConfiguration {
+
+   @Bean
+   public IdempotencyKeyStore idempotencyKeyStore(FileIdempotencyKeyStoreProperties properties) {
+      return new FileIdempotencyKeyStore(properties);
+   }
+}
@@ -0,0 +1,215 @@
+package pl.juraszek.sociabletests.adapter.driven.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import pl.juraszek.sociabletests.domain.order.IdempotencyKeyStore;
+import pl.juraszek.sociabletests.domain.order.codec.OrderBinaryCodec;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the order placed for a key as an {@link OrderBinaryCodec} frame, so a retry is answered
+ * whatever order repository is used. Keys are appended to a tab separated log of URL-encoded key,
+ * request fingerprint, Base64 frame and creation time, expired entries are skipped when the log
+ * is loaded. Encoding the key keeps tabs and line breaks sent in it from breaking the log.
+ * <p>
+ * Entries are kept in write order. Above {@code maximumSize} the oldest ones are evicted, and
+ * every {@code sweepInterval} the expired ones are dropped from the head. The sweep also
+ * compacts the log once it holds more than twice as many records as there are live entries.
+ */
+@Slf4j
+public class FileIdempotencyKeyStore implements IdempotencyKeyStore, AutoCloseable {
+
+   private final Path path;
+   private final long ttlMillis;
+   private final int maximumSize;
+   private final LongSupplier clock;
+   private final Map<String, Entry> entries = new LinkedHashMap<>();
+   private final ScheduledExecutorService sweeper;
+   private BufferedWriter writer;
+   private long logRecords;
+
+   public FileIdempotencyKeyStore(FileIdempotencyKeyStoreProperties properties) {
+      this(properties, System::currentTimeMillis);
+   }
+
+   FileIdempotencyKeyStore(FileIdempotencyKeyStoreProperties properties, LongSupplier clock) {
+      this.path = properties.path();
+      this.ttlMillis = properties.ttl().toMillis();
+      this.maximumSize = properties.maximumSize();
+      this.clock = clock;
+      try {
+         if (Files.exists(path)) {
+            load(Files.readAllLines(path, StandardCharsets.UTF_8));
+         }
+         this.writer = openLog();
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+      this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+         Thread thread = new Thread(runnable, "idempotency-key-sweeper");
+         thread.setDaemon(true);
+         return thread;
+      });
+      long interval = properties.sweepInterval().toMillis();
+      this.sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+   }
+
+   @Override
+   public @NonNull Optional<Placement> find(@NonNull String key) {
+      Entry entry;
+      synchronized (entries) {
+         entry = entries.get(key);
+         if (entry == null) {
+            return Optional.empty();
+         }
+         if (isExpired(entry)) {
+            entries.remove(key);
+            return Optional.empty();
+         }
+      }
+      return Optional.of(new Placement(entry.fingerprint(), OrderBinaryCodec.decode(entry.frame())));
+   }
+
+   @Override
+   public void put(@NonNull String key, @NonNull Placement placement) {
+      Entry entry = new Entry(placement.fingerprint(), OrderBinaryCodec.encode(placement.order()), clock.getAsLong());
+      synchronized (entries) {
+         try {
+            writer.write(record(key, entry));
+            writer.newLine();
+            writer.flush();
+            logRecords++;
+         } catch (IOException e) {
+            throw new UncheckedIOException(e);
+         }
+         add(key, entry);
+      }
+   }
+
+   public int size() {
+      synchronized (entries) {
+         return entries.size();
+      }
+   }
+
+   @Override
+   public void close() throws IOException {
+      sweeper.shutdownNow();
+      synchronized (entries) {
+         writer.close();
+      }
+   }
+
+   /**
+    * Entries share one ttl, so expired entries are found at the head and the sweep stops at the
+    * first live one.
+    */
+   void sweep() {
+      synchronized (entries) {
+         Iterator<Entry> oldest = entries.values().iterator();
+         while (oldest.hasNext() && isExpired(oldest.next())) {
+            oldest.remove();
+         }
+         if (logRecords > 2L * Math.max(entries.size(), 1)) {
+            compact();
+         }
+      }
+   }
+
+   /**
+    * Writes live entries to a new file and moves it over the log, the old log stays in place
+    * until the move, so a failed compaction loses nothing.
+    */
+   private void compact() {
+      Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+      try (BufferedWriter output = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+         for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            output.write(record(entry.getKey(), entry.getValue()));
+            output.newLine();
+         }
+      } catch (IOException e) {
+         log.error("Failed to compact idempotency key log {}", path, e);
+         return;
+      }
+      try {
+         writer.close();
+         Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+         logRecords = entries.size();
+      } catch (IOException e) {
+         log.error("Failed to compact idempotency key log {}", path, e);
+      } finally {
+         reopenLog();
+      }
+   }
+
+   private void reopenLog() {
+      try {
+         writer = openLog();
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   private BufferedWriter openLog() throws IOException {
+      return Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+   }
+
+   private void load(List<String> lines) {
+      logRecords = lines.size();
+      for (String line : lines) {
+         String[] fields = line.split("\t");
+         if (fields.length != 4) {
+            continue;
+         }
+         Entry entry = new Entry(fields[1], Base64.getDecoder().decode(fields[2]), Long.parseLong(fields[3]));
+         if (!isExpired(entry)) {
+            add(URLDecoder.decode(fields[0], StandardCharsets.UTF_8), entry);
+         }
+      }
+   }
+
+   private static String record(String key, Entry entry) {
+      return URLEncoder.encode(key, StandardCharsets.UTF_8) + '\t' + entry.fingerprint() + '\t'
+            + Base64.getEncoder().encodeToString(entry.frame()) + '\t' + entry.createdAt();
+   }
+
+   /**
+    * Re-adding a key moves it to the tail, so the write order is kept.
+    */
+   private void add(String key, Entry entry) {
+      entries.remove(key);
+      entries.put(key, entry);
+      Iterator<Entry> oldest = entries.values().iterator();
+      while (entries.size() > maximumSize && oldest.hasNext()) {
+         oldest.next();
+         oldest.remove();
+      }
+   }
+
+   private boolean isExpired(Entry entry) {
+      return clock.getAsLong() - entry.createdAt() > ttlMillis;
+   }
+
+   private record Entry(String fingerprint, byte[] frame, long createdAt) {
+   }
+}
@@ -0,0 +1,14 @@
+package pl.juraszek.sociabletests.adapter.driven.idempotency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "idempotency.file")
+public record FileIdempotencyKeyStoreProperties(@DefaultValue("idempotency-keys.log") Path path,
+                                                @DefaultValue("24h") Duration ttl,
+                                                @DefaultValue("100000") int maximumSize,
+                                                @DefaultValue("1m") Duration sweepInterval) {
+}
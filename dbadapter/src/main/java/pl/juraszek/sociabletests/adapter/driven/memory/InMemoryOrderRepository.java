@@ -0,0 +1,261 @@
+package pl.juraszek.sociabletests.adapter.driven.memory;
+
+import org.springframework.lang.Nullable;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.OrderQuery;
+import pl.juraszek.sociabletests.domain.order.OrderRepository;
+import pl.juraszek.sociabletests.domain.order.codec.OrderBinaryCodec;
+import pl.juraszek.sociabletests.domain.order.event.OrderEvent;
+import pl.juraszek.sociabletests.domain.order.event.OrderEventPublisher;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalog;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Keeps recent orders in memory. Orders are spread over shards by id hash, every shard has its
+ * own read-write lock, so writers of different shards never contend and reads only wait for a
+ * writer of the same shard.
+ * <p>
+ * A shard keeps its entries in write order and evicts the oldest ones once it holds more than
+ * its share of {@code maximumSize} or they are older than {@code maxAge}. Placed and rejected
+ * orders can no longer change and are kept as {@link OrderBinaryCodec} frames, only new orders
+ * are kept as objects. Every read returns a copy, product ids of orders read from frames are
+ * shared with the catalog when one is given.
+ * <p>
+ * {@link #find(OrderQuery)} scans all shards, it is meant for the occasional listing, not for
+ * the hot path.
+ * <p>
+ * Events pulled from saved orders are queued in an {@link InMemoryOutbox} when a publisher is
+ * given, and published from its thread.
+ */
+public class InMemoryOrderRepository implements OrderRepository, AutoCloseable {
+
+   private final Shard[] shards;
+   private final int shardCapacity;
+   private final long maxAgeNanos;
+   private final LongSupplier ticker;
+   private final InMemoryOutbox outbox;
+   private final ProductCatalog catalog;
+   private final AtomicLong evictions = new AtomicLong();
+
+   public InMemoryOrderRepository(InMemoryOrderRepositoryProperties properties, @Nullable OrderEventPublisher publisher) {
+      this(properties, publisher, null);
+   }
+
+   public InMemoryOrderRepository(InMemoryOrderRepositoryProperties properties, @Nullable OrderEventPublisher publisher,
+                                  @Nullable ProductCatalog catalog) {
+      this(properties, publisher, catalog, System::nanoTime);
+   }
+
+   InMemoryOrderRepository(InMemoryOrderRepositoryProperties properties, @Nullable OrderEventPublisher publisher,
+                           @Nullable ProductCatalog catalog, LongSupplier ticker) {
+      this.shards = new Shard[properties.shards() <= 1 ? 1 : Integer.highestOneBit(properties.shards() - 1) << 1];
+      for (int i = 0; i < shards.length; i++) {
+         shards[i] = new Shard();
+      }
+      this.shardCapacity = Math.max(1, (properties.maximumSize() + shards.length - 1) / shards.length);
+      this.maxAgeNanos = properties.maxAge().toNanos();
+      this.ticker = ticker;
+      this.outbox = publisher == null ? null : new InMemoryOutbox(publisher, properties);
+      this.catalog = catalog;
+   }
+
+   @Override
+   public Order save(Order order) {
+      List<OrderEvent> events = order.pullEvents();
+      shardOf(order.getId()).put(List.of(order), ticker.getAsLong());
+      publish(events);
+      return order;
+   }
+
+   /**
+    * Orders are grouped by shard first, so every shard lock is taken once per call.
+    */
+   @Override
+   public List<Order> saveAll(List<Order> orders) {
+      List<OrderEvent> events = new ArrayList<>();
+      List<List<Order>> byShard = new ArrayList<>(shards.length);
+      for (int i = 0; i < shards.length; i++) {
+         byShard.add(new ArrayList<>());
+      }
+      for (Order order : orders) {
+         events.addAll(order.pullEvents());
+         byShard.get(shardIndex(order.getId())).add(order);
+      }
+      long now = ticker.getAsLong();
+      for (int i = 0; i < shards.length; i++) {
+         if (!byShard.get(i).isEmpty()) {
+            shards[i].put(byShard.get(i), now);
+         }
+      }
+      publish(events);
+      return orders;
+   }
+
+   @Override
+   public Optional<Order> findById(String id) {
+      return shardOf(id).get(id, ticker.getAsLong()).map(this::toOrder);
+   }
+
+   @Override
+   public Stream<Order> find(OrderQuery query) {
+      long now = ticker.getAsLong();
+      List<Entry> matching = new ArrayList<>();
+      for (Shard shard : shards) {
+         shard.collect(query, now, matching);
+      }
+      return matching.stream()
+            .sorted(Comparator.comparing(Entry::id))
+            .limit(query.limit())
+            .map(this::toOrder);
+   }
+
+   public long size() {
+      long size = 0;
+      for (Shard shard : shards) {
+         size += shard.size();
+      }
+      return size;
+   }
+
+   public long evictionCount() {
+      return evictions.get();
+   }
+
+   int shardCount() {
+      return shards.length;
+   }
+
+   long publishedCount() {
+      return outbox == null ? 0 : outbox.publishedCount();
+   }
+
+   @Override
+   public void close() throws InterruptedException {
+      if (outbox != null) {
+         outbox.close();
+      }
+   }
+
+   private void publish(List<OrderEvent> events) {
+      if (outbox != null && !events.isEmpty()) {
+         outbox.add(events);
+      }
+   }
+
+   private Order toOrder(Entry entry) {
+      if (entry.order() != null) {
+         return Entry.copy(entry.order());
+      }
+      return catalog == null ? OrderBinaryCodec.decode(entry.frame()) : OrderBinaryCodec.decode(entry.frame(), catalog);
+   }
+
+   private Shard shardOf(String id) {
+      return shards[shardIndex(id)];
+   }
+
+   private int shardIndex(String id) {
+      int hash = id.hashCode();
+      return (hash ^ (hash >>> 16)) & (shards.length - 1);
+   }
+
+   private boolean isExpired(Entry entry, long now) {
+      return now - entry.storedAt() > maxAgeNanos;
+   }
+
+   private final class Shard {
+      private final ReadWriteLock lock = new ReentrantReadWriteLock();
+      private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+      private void put(List<Order> orders, long now) {
+         List<Entry> converted = orders.stream().map(order -> Entry.of(order, now)).toList();
+         lock.writeLock().lock();
+         try {
+            for (Entry entry : converted) {
+               // re-inserting moves the entry to the tail, so write order is kept
+               entries.remove(entry.id());
+               entries.put(entry.id(), entry);
+            }
+            evict(now);
+         } finally {
+            lock.writeLock().unlock();
+         }
+      }
+
+      private Optional<Entry> get(String id, long now) {
+         lock.readLock().lock();
+         try {
+            Entry entry = entries.get(id);
+            return entry == null || isExpired(entry, now) ? Optional.empty() : Optional.of(entry);
+         } finally {
+            lock.readLock().unlock();
+         }
+      }
+
+      private void collect(OrderQuery query, long now, List<Entry> matching) {
+         lock.readLock().lock();
+         try {
+            for (Entry entry : entries.values()) {
+               if (!isExpired(entry, now) && entry.matches(query)) {
+                  matching.add(entry);
+               }
+            }
+         } finally {
+            lock.readLock().unlock();
+         }
+      }
+
+      private int size() {
+         lock.readLock().lock();
+         try {
+            return entries.size();
+         } finally {
+            lock.readLock().unlock();
+         }
+      }
+
+      private void evict(long now) {
+         Iterator<Map.Entry<String, Entry>> oldest = entries.entrySet().iterator();
+         while (oldest.hasNext()) {
+            Entry entry = oldest.next().getValue();
+            if (entries.size() <= shardCapacity && !isExpired(entry, now)) {
+               return;
+            }
+            oldest.remove();
+            evictions.incrementAndGet();
+         }
+      }
+   }
+
+   private record Entry(String id, String clientId, Order.Status status, long storedAt,
+                        @Nullable Order order, @Nullable byte[] frame) {
+
+      private static Entry of(Order order, long now) {
+         if (order.getStatus() == Order.Status.NEW) {
+            return new Entry(order.getId(), order.getClientId(), order.getStatus(), now, copy(order), null);
+         }
+         return new Entry(order.getId(), order.getClientId(), order.getStatus(), now, null, OrderBinaryCodec.encode(order));
+      }
+
+      private boolean matches(OrderQuery query) {
+         return (query.clientId() == null || query.clientId().equals(clientId))
+               && (query.status() == null || query.status() == status)
+               && (query.after() == null || id.compareTo(query.after()) > 0);
+      }
+
+      private static Order copy(Order order) {
+         return Order.restore(order.getId(), order.getProducts(), order.getClientId(), order.getStatus());
+      }
+   }
+}
@@ -0,0 +1,19 @@
+package pl.juraszek.sociabletests.adapter.driven.memory;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * {@code shards} is rounded up to a power of two, {@code maximumSize} is split evenly between
+ * shards. {@code outboxCapacity} bounds the events waiting for the publisher.
+ */
+@ConfigurationProperties(prefix = "order-repository.in-memory")
+public record InMemoryOrderRepositoryProperties(@DefaultValue("64") int shards,
+                                                @DefaultValue("1000000") int maximumSize,
+                                                @DefaultValue("1h") Duration maxAge,
+                                                @DefaultValue("100000") int outboxCapacity,
+                                                @DefaultValue("256") int relayBatchSize,
+                                                @DefaultValue("5s") Duration relayMaxBackoff) {
+}
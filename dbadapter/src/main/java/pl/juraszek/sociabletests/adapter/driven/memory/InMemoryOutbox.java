@@ -0,0 +1,103 @@
+package pl.juraszek.sociabletests.adapter.driven.memory;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.juraszek.sociabletests.domain.order.event.OrderEvent;
+import pl.juraszek.sociabletests.domain.order.event.OrderEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queues events of saved orders and hands them to an {@link OrderEventPublisher} in batches on
+ * its own thread, so a slow or failing publisher never holds back a save. A failed batch is
+ * retried with exponential backoff until it is delivered. Events are only lost when the queue
+ * is full, when the publisher still fails while closing, or with the process, like the orders
+ * themselves.
+ */
+@Slf4j
+class InMemoryOutbox implements AutoCloseable {
+
+   private static final long IDLE_POLL_MILLIS = 100;
+   private static final long MIN_BACKOFF_MILLIS = 10;
+
+   private final BlockingQueue<OrderEvent> queue;
+   private final OrderEventPublisher publisher;
+   private final int batchSize;
+   private final long maxBackoffMillis;
+   private final AtomicLong published = new AtomicLong();
+   private final Thread relay;
+   private volatile boolean running = true;
+
+   InMemoryOutbox(OrderEventPublisher publisher, InMemoryOrderRepositoryProperties properties) {
+      this.queue = new ArrayBlockingQueue<>(properties.outboxCapacity());
+      this.publisher = publisher;
+      this.batchSize = properties.relayBatchSize();
+      this.maxBackoffMillis = properties.relayMaxBackoff().toMillis();
+      this.relay = new Thread(this::relayLoop, "order-event-relay");
+      this.relay.setDaemon(true);
+      this.relay.start();
+   }
+
+   void add(List<OrderEvent> events) {
+      int rejected = 0;
+      for (OrderEvent event : events) {
+         if (!queue.offer(event)) {
+            rejected++;
+         }
+      }
+      if (rejected > 0) {
+         log.error("Dropping {} order events, outbox is full", rejected);
+      }
+   }
+
+   long publishedCount() {
+      return published.get();
+   }
+
+   @Override
+   public void close() throws InterruptedException {
+      running = false;
+      relay.join();
+   }
+
+   private void relayLoop() {
+      List<OrderEvent> batch = new ArrayList<>(batchSize);
+      try {
+         while (running || !queue.isEmpty()) {
+            OrderEvent first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (first == null) {
+               continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            deliver(batch);
+            batch.clear();
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private void deliver(List<OrderEvent> batch) throws InterruptedException {
+      long backoff = MIN_BACKOFF_MILLIS;
+      while (true) {
+         try {
+            publisher.publish(batch);
+            published.addAndGet(batch.size());
+            return;
+         } catch (RuntimeException e) {
+            if (!running) {
+               log.error("Dropping {} order events, publisher failed while closing", batch.size(), e);
+               return;
+            }
+            log.warn("Failed to publish {} order events, retrying in {} ms", batch.size(), backoff, e);
+            Thread.sleep(backoff);
+            backoff = Math.min(backoff * 2, maxBackoffMillis);
+         }
+      }
+   }
+}
@@ -0,0 +1,21 @@
+package pl.juraszek.sociabletests.adapter.driven.memory;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import pl.juraszek.sociabletests.domain.order.OrderRepository;
+import pl.juraszek.sociabletests.domain.order.event.OrderEventPublisher;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalog;
+
+@Profile("in-memory-order-repository")
+@Configuration
+@EnableConfigurationProperties(InMemoryOrderRepositoryProperties.class)
+public class InMemoryRepositoryConfiguration {
+
+   @Bean
+   public OrderRepository orderRepository(InMemoryOrderRepositoryProperties properties, OrderEventPublisher publisher,
+                                          ProductCatalog productCatalog) {
+      return new InMemoryOrderRepository(properties, publisher, productCatalog);
+   }
+}
@@ -0,0 +1,368 @@
+package pl.juraszek.sociabletests.adapter.driven.repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.OrderQuery;
+import pl.juraszek.sociabletests.domain.order.OrderRepository;
+import pl.juraszek.sociabletests.domain.order.event.OrderEvent;
+import pl.juraszek.sociabletests.domain.order.event.OrderEventPublisher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Append-only order log. Callers of {@link #save(Order)} block until their record is on disk,
+ * but records of concurrent callers are written by a single writer thread and share one fsync
+ * (group commit). A batch is flushed when it reaches {@code batchSize} records or when
+ * {@code flushInterval} passed since its first record.
+ * <p>
+ * Orders are found through an {@link OrderIndex} rebuilt from the log on start and updated
+ * after every flush, records are then read with positional reads. The index keeps at most
+ * {@code indexMemtableSize} entries and a sparse sample of the rest on heap, see {@link OrderIndex}.
+ * <p>
+ * Events pulled from a saved order are appended right after it, in the same batch, so the log
+ * doubles as the outbox drained by an {@link OutboxRelay} when a publisher is given. Events of a
+ * save that fails are returned to the order, so they are not lost with the record.
+ * <p>
+ * Flushed batch sizes, fsync latency and commit latency, from enqueueing a record to its fsync,
+ * are published as {@code order.repository.file.batch.size}, {@code order.repository.file.fsync}
+ * and {@code order.repository.file.commit}.
+ */
+@Slf4j
+public class FileOrderRepository implements OrderRepository, AutoCloseable {
+
+   private static final Duration IDLE_POLL = Duration.ofMillis(100);
+
+   private final FileChannel channel;
+   private final FileChannel readChannel;
+   private final OrderIndex index;
+   private final long flushIntervalNanos;
+   private final int batchSize;
+   private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+   private final Thread writer;
+   private final AtomicLong writes = new AtomicLong();
+   private final AtomicLong flushes = new AtomicLong();
+   private final AtomicLong durableSize = new AtomicLong();
+   private final OutboxRelay relay;
+   private final DistributionSummary batchSizes;
+   private final Timer fsyncs;
+   private final Timer commits;
+   private final Object lifecycle = new Object();
+   private volatile boolean running = true;
+
+   public FileOrderRepository(FileOrderRepositoryProperties properties) {
+      this(properties, null, null);
+   }
+
+   public FileOrderRepository(FileOrderRepositoryProperties properties, @Nullable OrderEventPublisher publisher,
+                              @Nullable OutboxRelayProperties outbox) {
+      this(properties, publisher, outbox, new SimpleMeterRegistry());
+   }
+
+   public FileOrderRepository(FileOrderRepositoryProperties properties, @Nullable OrderEventPublisher publisher,
+                              @Nullable OutboxRelayProperties outbox, MeterRegistry registry) {
+      this.channel = open(properties.path(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+      this.readChannel = open(properties.path(), StandardOpenOption.READ);
+      this.flushIntervalNanos = properties.flushInterval().toNanos();
+      this.batchSize = properties.batchSize();
+      this.index = new OrderIndex(properties.path(), properties.indexMemtableSize());
+      this.batchSizes = DistributionSummary.builder("order.repository.file.batch.size")
+            .publishPercentileHistogram()
+            .register(registry);
+      this.fsyncs = Timer.builder("order.repository.file.fsync")
+            .publishPercentileHistogram()
+            .register(registry);
+      this.commits = Timer.builder("order.repository.file.commit")
+            .publishPercentileHistogram()
+            .register(registry);
+      rebuildIndex();
+      this.writer = new Thread(this::writeLoop, "order-repository-writer");
+      this.writer.setDaemon(true);
+      this.writer.start();
+      this.relay = publisher == null ? null : new OutboxRelay(properties.path(), durableSize::get, publisher, outbox);
+      FunctionCounter.builder("order.outbox.skipped", this, FileOrderRepository::skippedEventCount).register(registry);
+   }
+
+   @Override
+   public Order save(Order order) {
+      List<OrderEvent> events = order.pullEvents();
+      try {
+         await(enqueue(order, events));
+      } catch (RuntimeException e) {
+         order.returnEvents(events);
+         throw e;
+      }
+      return order;
+   }
+
+   @Override
+   public List<Order> saveAll(List<Order> orders) {
+      List<List<OrderEvent>> events = orders.stream().map(Order::pullEvents).toList();
+      List<CompletableFuture<Void>> writes = new ArrayList<>(orders.size());
+      RuntimeException failure = null;
+      for (int i = 0; i < orders.size(); i++) {
+         try {
+            writes.add(enqueue(orders.get(i), events.get(i)));
+         } catch (RuntimeException e) {
+            writes.add(CompletableFuture.failedFuture(e));
+         }
+      }
+      for (int i = 0; i < orders.size(); i++) {
+         try {
+            await(writes.get(i));
+         } catch (RuntimeException e) {
+            orders.get(i).returnEvents(events.get(i));
+            failure = failure == null ? e : failure;
+         }
+      }
+      if (failure != null) {
+         throw failure;
+      }
+      return orders;
+   }
+
+   @Override
+   public Optional<Order> findById(String id) {
+      var position = index.position(id);
+      return position.isPresent() ? Optional.of(read(position.getAsLong())) : Optional.empty();
+   }
+
+   @Override
+   public Stream<Order> find(OrderQuery query) {
+      return index.positions(query).mapToObj(this::read);
+   }
+
+   public long writeCount() {
+      return writes.get();
+   }
+
+   public long flushCount() {
+      return flushes.get();
+   }
+
+   int indexSegmentCount() {
+      return index.segmentCount();
+   }
+
+   long publishedCount() {
+      return relay == null ? 0 : relay.publishedCount();
+   }
+
+   /**
+    * Event records the relay could not decode and skipped, see {@link OutboxRelay}.
+    */
+   public long skippedEventCount() {
+      return relay == null ? 0 : relay.skippedCount();
+   }
+
+   @Override
+   public void close() throws IOException, InterruptedException {
+      stopAccepting();
+      writer.join();
+      List<PendingWrite> abandoned = new ArrayList<>();
+      queue.drainTo(abandoned);
+      abandoned.forEach(write -> write.written().completeExceptionally(new IllegalStateException("Order repository is closed")));
+      if (relay != null) {
+         relay.close();
+      }
+      index.close();
+      channel.close();
+      readChannel.close();
+   }
+
+   /**
+    * Checking {@code running} and adding to the queue happen under the lifecycle lock, so a write
+    * is either rejected or added while the writer still drains the queue.
+    */
+   private CompletableFuture<Void> enqueue(Order order, List<OrderEvent> events) {
+      PendingWrite write = new PendingWrite(order.getId(), order.getClientId(), order.getStatus(),
+            OrderRecords.encode(order, events), System.nanoTime(), new CompletableFuture<>());
+      synchronized (lifecycle) {
+         if (!running) {
+            throw new IllegalStateException("Order repository is closed");
+         }
+         queue.add(write);
+      }
+      return write.written();
+   }
+
+   private void stopAccepting() {
+      synchronized (lifecycle) {
+         running = false;
+      }
+   }
+
+   private void await(CompletableFuture<Void> write) {
+      try {
+         write.join();
+      } catch (CompletionException e) {
+         throw (RuntimeException) e.getCause();
+      }
+   }
+
+   private void writeLoop() {
+      List<PendingWrite> batch = new ArrayList<>(batchSize);
+      while (running || !queue.isEmpty()) {
+         try {
+            collectBatch(batch);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopAccepting();
+            queue.drainTo(batch, batchSize - batch.size());
+         }
+         if (!batch.isEmpty()) {
+            flush(batch);
+            batch.clear();
+         }
+      }
+   }
+
+   private void collectBatch(List<PendingWrite> batch) throws InterruptedException {
+      PendingWrite first = queue.poll(IDLE_POLL.toNanos(), TimeUnit.NANOSECONDS);
+      if (first == null) {
+         return;
+      }
+      batch.add(first);
+      long deadline = System.nanoTime() + flushIntervalNanos;
+      while (batch.size() < batchSize) {
+         queue.drainTo(batch, batchSize - batch.size());
+         long remaining = deadline - System.nanoTime();
+         if (batch.size() == batchSize || remaining <= 0) {
+            return;
+         }
+         PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+         if (next == null) {
+            return;
+         }
+         batch.add(next);
+      }
+   }
+
+   /**
+    * A batch that fails is cut off the log again, otherwise its partially written records would
+    * end the log on the next start and hide every batch written after them.
+    */
+   private void flush(List<PendingWrite> batch) {
+      ByteBuffer[] records = batch.stream().map(PendingWrite::record).toArray(ByteBuffer[]::new);
+      long start = -1;
+      try {
+         start = channel.size();
+         long position = start;
+         long remaining = batch.stream().mapToLong(write -> write.record().remaining()).sum();
+         while (remaining > 0) {
+            remaining -= channel.write(records);
+         }
+         long fsyncStart = System.nanoTime();
+         channel.force(false);
+         long committed = System.nanoTime();
+         fsyncs.record(committed - fsyncStart, TimeUnit.NANOSECONDS);
+         batchSizes.record(batch.size());
+         for (PendingWrite write : batch) {
+            index.put(write.id(), write.clientId(), write.status(), position);
+            position += write.record().limit();
+         }
+         durableSize.set(position);
+         writes.addAndGet(batch.size());
+         flushes.incrementAndGet();
+         batch.forEach(write -> {
+            commits.record(committed - write.enqueuedAt(), TimeUnit.NANOSECONDS);
+            write.written().complete(null);
+         });
+      } catch (IOException e) {
+         log.error("Failed to flush batch of {} orders", batch.size(), e);
+         if (start >= 0) {
+            truncate(start);
+         }
+         batch.forEach(write -> write.written().completeExceptionally(new UncheckedIOException(e)));
+      }
+   }
+
+   private void truncate(long size) {
+      try {
+         channel.truncate(size);
+      } catch (IOException e) {
+         log.error("Failed to truncate order log back to {} bytes, later records may be lost on restart", size, e);
+      }
+   }
+
+   private void rebuildIndex() {
+      try {
+         long position = 0;
+         long size = readChannel.size();
+         while (position + Integer.BYTES <= size) {
+            int length = readInt(position);
+            if (position + Integer.BYTES + length > size) {
+               break;
+            }
+            byte[] payload = readBytes(position + Integer.BYTES, length);
+            if (!OrderRecords.isEvent(payload)) {
+               Order order = OrderRecords.decode(payload);
+               index.put(order.getId(), order.getClientId(), order.getStatus(), position);
+            }
+            position += Integer.BYTES + length;
+         }
+         if (position < size) {
+            log.warn("Truncating incomplete record at position {} of order log", position);
+            channel.truncate(position);
+         }
+         durableSize.set(position);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   private Order read(long position) {
+      try {
+         return OrderRecords.decode(readBytes(position + Integer.BYTES, readInt(position)));
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   private int readInt(long position) throws IOException {
+      return ByteBuffer.wrap(readBytes(position, Integer.BYTES)).getInt();
+   }
+
+   private byte[] readBytes(long position, int length) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      while (buffer.hasRemaining()) {
+         if (readChannel.read(buffer, position + buffer.position()) < 0) {
+            throw new IOException(String.format("Unexpected end of order log at position %s", position));
+         }
+      }
+      return buffer.array();
+   }
+
+   private static FileChannel open(Path path, StandardOpenOption... options) {
+      try {
+         return FileChannel.open(path, options);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   private record PendingWrite(String id, String clientId, Order.Status status, ByteBuffer record, long enqueuedAt,
+                               CompletableFuture<Void> written) {
+   }
+}
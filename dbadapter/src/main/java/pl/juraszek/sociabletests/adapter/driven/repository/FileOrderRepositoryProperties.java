@@ -0,0 +1,14 @@
+package pl.juraszek.sociabletests.adapter.driven.repository;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "order-repository.file")
+public record FileOrderRepositoryProperties(@DefaultValue("orders.log") Path path,
+                                            @DefaultValue("2ms") Duration flushInterval,
+                                            @DefaultValue("256") int batchSize,
+                                            @DefaultValue("100000") int indexMemtableSize) {
+}
@@ -0,0 +1,23 @@
+package pl.juraszek.sociabletests.adapter.driven.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import pl.juraszek.sociabletests.domain.order.OrderRepository;
+import pl.juraszek.sociabletests.domain.order.event.OrderEventPublisher;
+
+@Profile("file-order-repository")
+@Configuration
+@EnableConfigurationProperties({FileOrderRepositoryProperties.class, OutboxRelayProperties.class})
+public class FileRepositoryConfiguration {
+
+   @Bean
+   public OrderRepository orderRepository(FileOrderRepositoryProperties properties, OrderEventPublisher publisher,
+                                          OutboxRelayProperties outbox, ObjectProvider<MeterRegistry> meterRegistry) {
+      return new FileOrderRepository(properties, publisher, outbox, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+   }
+}
@@ -0,0 +1,441 @@
+package pl.juraszek.sociabletests.adapter.driven.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.OrderQuery;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.OptionalLong;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Primary index of the order log: order id to log position, with the client and status queries
+ * filter on. Recent entries are kept in a sorted in-memory table. Once it holds
+ * {@code memtableSize} entries it is written to a segment file sorted by id. A segment keeps only
+ * every {@value #SPARSE_INTERVAL}th id on heap, a lookup reads the block of records following the
+ * closest one. A segment is merged with the next older one while that one is at most twice its
+ * size, so there are about log2(orders / memtableSize) segments.
+ * <p>
+ * Heap held by the index is bounded by {@code memtableSize} entries plus one id and offset per
+ * {@value #SPARSE_INTERVAL} indexed orders, about 2 bytes per order for UUID ids. Segments are
+ * derived from the log, they are dropped on start and written again while the log is read.
+ * <p>
+ * Queries merge the table and the segments in id order, the newest entry of an id wins. Client
+ * and status are filtered while merging, there is no secondary index, so a query scans ids until
+ * its page is full.
+ * <p>
+ * Updated by a single writer, read concurrently. Readers pin the segments they use, a merged
+ * segment is closed and deleted once its last reader is done.
+ */
+@Slf4j
+final class OrderIndex implements AutoCloseable {
+
+   private static final int SPARSE_INTERVAL = 64;
+
+   private final Path directory;
+   private final String prefix;
+   private final int memtableSize;
+   private volatile State state = new State(new ConcurrentSkipListMap<>(), List.of());
+   private int memtableEntries;
+   private int spillAt;
+   private long nextSegment;
+
+   OrderIndex(Path log, int memtableSize) {
+      this.directory = log.toAbsolutePath().getParent();
+      this.prefix = log.getFileName() + ".index-";
+      this.memtableSize = Math.max(1, memtableSize);
+      this.spillAt = this.memtableSize;
+      deleteSegmentFiles();
+   }
+
+   void put(String id, String clientId, Order.Status status, long position) {
+      if (state.memtable().put(id, new Entry(id, clientId, status, position)) == null) {
+         memtableEntries++;
+      }
+      if (memtableEntries >= spillAt) {
+         spill();
+      }
+   }
+
+   OptionalLong position(String id) {
+      State current = acquire();
+      try {
+         Entry entry = current.memtable().get(id);
+         for (Iterator<Segment> segments = current.segments().iterator(); entry == null && segments.hasNext(); ) {
+            entry = segments.next().find(id);
+         }
+         return entry == null ? OptionalLong.empty() : OptionalLong.of(entry.position());
+      } finally {
+         release(current);
+      }
+   }
+
+   /**
+    * Positions of a page are collected right away, so no segment stays pinned by a stream the
+    * caller has not closed yet.
+    */
+   LongStream positions(OrderQuery query) {
+      State current = acquire();
+      try {
+         List<Iterator<Entry>> sources = new ArrayList<>(1 + current.segments().size());
+         sources.add((query.after() == null ? current.memtable() : current.memtable().tailMap(query.after(), false))
+               .values().iterator());
+         current.segments().forEach(segment -> sources.add(segment.cursor(query.after())));
+         Iterator<Entry> entries = merge(sources);
+         LongStream.Builder positions = LongStream.builder();
+         for (int found = 0; found < query.limit() && entries.hasNext(); ) {
+            Entry entry = entries.next();
+            if (matches(entry, query)) {
+               positions.add(entry.position());
+               found++;
+            }
+         }
+         return positions.build();
+      } finally {
+         release(current);
+      }
+   }
+
+   int segmentCount() {
+      return state.segments().size();
+   }
+
+   @Override
+   public void close() {
+      state.segments().forEach(Segment::release);
+   }
+
+   /**
+    * A segment that fails to be written leaves its entries in memory, the next attempt is made
+    * after another {@code memtableSize} entries.
+    */
+   private void spill() {
+      State current = state;
+      Segment segment;
+      try {
+         segment = Segment.write(nextPath(), current.memtable().values().iterator());
+      } catch (IOException e) {
+         log.error("Failed to write order index segment, keeping {} entries in memory", memtableEntries, e);
+         spillAt = memtableEntries + memtableSize;
+         return;
+      }
+      List<Segment> segments = new ArrayList<>(current.segments().size() + 1);
+      segments.add(segment);
+      segments.addAll(current.segments());
+      state = new State(new ConcurrentSkipListMap<>(), List.copyOf(segments));
+      memtableEntries = 0;
+      spillAt = memtableSize;
+      mergeSegments();
+   }
+
+   private void mergeSegments() {
+      List<Segment> segments = state.segments();
+      while (segments.size() > 1 && segments.get(1).count() <= 2L * segments.get(0).count()) {
+         Segment newer = segments.get(0);
+         Segment older = segments.get(1);
+         Segment merged;
+         try {
+            merged = Segment.write(nextPath(), merge(List.of(newer.cursor(null), older.cursor(null))));
+         } catch (IOException | UncheckedIOException e) {
+            log.error("Failed to merge order index segments {} and {}", newer.path(), older.path(), e);
+            return;
+         }
+         List<Segment> remaining = new ArrayList<>(segments.size() - 1);
+         remaining.add(merged);
+         remaining.addAll(segments.subList(2, segments.size()));
+         segments = List.copyOf(remaining);
+         state = new State(state.memtable(), segments);
+         newer.release();
+         older.release();
+      }
+   }
+
+   /**
+    * Pins every segment of the current state. A segment released by a merge in the meantime
+    * cannot be pinned anymore, the state it belonged to is then already replaced, so it is read
+    * again.
+    */
+   private State acquire() {
+      while (true) {
+         State current = state;
+         int pinned = 0;
+         while (pinned < current.segments().size() && current.segments().get(pinned).acquire()) {
+            pinned++;
+         }
+         if (pinned == current.segments().size()) {
+            return current;
+         }
+         current.segments().subList(0, pinned).forEach(Segment::release);
+      }
+   }
+
+   private void release(State pinned) {
+      pinned.segments().forEach(Segment::release);
+   }
+
+   private Path nextPath() {
+      return directory.resolve(prefix + nextSegment++);
+   }
+
+   private void deleteSegmentFiles() {
+      try (Stream<Path> files = Files.list(directory)) {
+         for (Path file : files.filter(file -> file.getFileName().toString().startsWith(prefix)).toList()) {
+            Files.delete(file);
+         }
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   private static boolean matches(Entry entry, OrderQuery query) {
+      return (query.clientId() == null || query.clientId().equals(entry.clientId()))
+            && (query.status() == null || query.status() == entry.status());
+   }
+
+   /**
+    * Merges sources sorted by id into one, sources are given newest first and the newest entry
+    * of an id hides the older ones.
+    */
+   private static Iterator<Entry> merge(List<Iterator<Entry>> sources) {
+      PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing((Head head) -> head.entry().id())
+            .thenComparingInt(Head::rank));
+      for (int rank = 0; rank < sources.size(); rank++) {
+         advance(heads, sources.get(rank), rank);
+      }
+      return new Iterator<>() {
+         @Override
+         public boolean hasNext() {
+            return !heads.isEmpty();
+         }
+
+         @Override
+         public Entry next() {
+            if (heads.isEmpty()) {
+               throw new NoSuchElementException();
+            }
+            Head newest = heads.poll();
+            advance(heads, newest.source(), newest.rank());
+            while (!heads.isEmpty() && heads.peek().entry().id().equals(newest.entry().id())) {
+               Head hidden = heads.poll();
+               advance(heads, hidden.source(), hidden.rank());
+            }
+            return newest.entry();
+         }
+      };
+   }
+
+   private static void advance(PriorityQueue<Head> heads, Iterator<Entry> source, int rank) {
+      if (source.hasNext()) {
+         heads.add(new Head(source.next(), source, rank));
+      }
+   }
+
+   private record State(ConcurrentSkipListMap<String, Entry> memtable, List<Segment> segments) {
+   }
+
+   private record Entry(String id, String clientId, Order.Status status, long position) {
+   }
+
+   private record Head(Entry entry, Iterator<Entry> source, int rank) {
+   }
+
+   /**
+    * Segment file layout: ([utf id][utf client id][byte status][long position])* sorted by id.
+    */
+   private static final class Segment {
+      private static final Order.Status[] STATUSES = Order.Status.values();
+
+      private final Path path;
+      private final FileChannel channel;
+      private final String[] sparseIds;
+      private final long[] sparseOffsets;
+      private final long size;
+      private final long count;
+      private final AtomicInteger references = new AtomicInteger(1);
+
+      private Segment(Path path, String[] sparseIds, long[] sparseOffsets, long size, long count) throws IOException {
+         this.path = path;
+         this.channel = FileChannel.open(path, StandardOpenOption.READ);
+         this.sparseIds = sparseIds;
+         this.sparseOffsets = sparseOffsets;
+         this.size = size;
+         this.count = count;
+      }
+
+      /**
+       * A partially written file is deleted again when writing fails.
+       */
+      private static Segment write(Path path, Iterator<Entry> entries) throws IOException {
+         try {
+            return writeEntries(path, entries);
+         } catch (IOException | UncheckedIOException e) {
+            Files.deleteIfExists(path);
+            throw e;
+         }
+      }
+
+      private static Segment writeEntries(Path path, Iterator<Entry> entries) throws IOException {
+         List<String> sparseIds = new ArrayList<>();
+         List<Long> sparseOffsets = new ArrayList<>();
+         ByteArrayOutputStream record = new ByteArrayOutputStream(64);
+         DataOutputStream fields = new DataOutputStream(record);
+         long offset = 0;
+         long count = 0;
+         try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(path))) {
+            while (entries.hasNext()) {
+               Entry entry = entries.next();
+               if (count++ % SPARSE_INTERVAL == 0) {
+                  sparseIds.add(entry.id());
+                  sparseOffsets.add(offset);
+               }
+               record.reset();
+               fields.writeUTF(entry.id());
+               fields.writeUTF(entry.clientId());
+               fields.writeByte(entry.status().ordinal());
+               fields.writeLong(entry.position());
+               record.writeTo(output);
+               offset += record.size();
+            }
+         }
+         return new Segment(path, sparseIds.toArray(String[]::new),
+               sparseOffsets.stream().mapToLong(Long::longValue).toArray(), offset, count);
+      }
+
+      private Path path() {
+         return path;
+      }
+
+      private long count() {
+         return count;
+      }
+
+      private boolean acquire() {
+         int current;
+         do {
+            current = references.get();
+            if (current == 0) {
+               return false;
+            }
+         } while (!references.compareAndSet(current, current + 1));
+         return true;
+      }
+
+      private void release() {
+         if (references.decrementAndGet() == 0) {
+            try {
+               channel.close();
+               Files.deleteIfExists(path);
+            } catch (IOException e) {
+               log.warn("Failed to delete order index segment {}", path, e);
+            }
+         }
+      }
+
+      private Entry find(String id) {
+         int block = floorBlock(id);
+         if (block < 0) {
+            return null;
+         }
+         for (Entry entry : readBlock(block)) {
+            int order = entry.id().compareTo(id);
+            if (order == 0) {
+               return entry;
+            }
+            if (order > 0) {
+               return null;
+            }
+         }
+         return null;
+      }
+
+      /**
+       * Entries with ids greater than {@code after}, blocks are read one at a time.
+       */
+      private Iterator<Entry> cursor(String after) {
+         int first = after == null ? 0 : Math.max(0, floorBlock(after));
+         return new Iterator<>() {
+            private int block = first;
+            private Iterator<Entry> entries = List.<Entry>of().iterator();
+            private Entry next = advance();
+
+            @Override
+            public boolean hasNext() {
+               return next != null;
+            }
+
+            @Override
+            public Entry next() {
+               if (next == null) {
+                  throw new NoSuchElementException();
+               }
+               Entry current = next;
+               next = advance();
+               return current;
+            }
+
+            private Entry advance() {
+               while (true) {
+                  while (entries.hasNext()) {
+                     Entry entry = entries.next();
+                     if (after == null || entry.id().compareTo(after) > 0) {
+                        return entry;
+                     }
+                  }
+                  if (block >= sparseIds.length) {
+                     return null;
+                  }
+                  entries = readBlock(block++).iterator();
+               }
+            }
+         };
+      }
+
+      private int floorBlock(String id) {
+         int found = Arrays.binarySearch(sparseIds, id);
+         return found >= 0 ? found : -found - 2;
+      }
+
+      private List<Entry> readBlock(int block) {
+         long start = sparseOffsets[block];
+         long end = block + 1 < sparseOffsets.length ? sparseOffsets[block + 1] : size;
+         ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+         List<Entry> entries = new ArrayList<>(SPARSE_INTERVAL);
+         try {
+            while (buffer.hasRemaining()) {
+               if (channel.read(buffer, start + buffer.position()) < 0) {
+                  throw new IOException(String.format("Unexpected end of order index segment %s", path));
+               }
+            }
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(buffer.array()));
+            while (input.available() > 0) {
+               entries.add(new Entry(input.readUTF(), input.readUTF(), STATUSES[input.readByte()], input.readLong()));
+            }
+         } catch (IOException e) {
+            throw new UncheckedIOException(e);
+         }
+         return entries;
+      }
+   }
+}
@@ -0,0 +1,87 @@
+package pl.juraszek.sociabletests.adapter.driven.repository;
+
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.codec.OrderBinaryCodec;
+import pl.juraszek.sociabletests.domain.order.event.OrderEvent;
+import pl.juraszek.sociabletests.domain.order.event.OrderPlaced;
+import pl.juraszek.sociabletests.domain.order.event.OrderRejected;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+final class OrderRecords {
+
+   private static final byte EVENT_MAGIC = 0x45;
+   private static final byte ORDER_PLACED = 0;
+   private static final byte ORDER_REJECTED = 1;
+
+   private OrderRecords() {
+   }
+
+   /**
+    * Record layout: [int length][{@link OrderBinaryCodec} frame with a single order], followed
+    * by one event record per event: [int length][0x45][byte type][utf order id][utf client id][long epoch millis]
+    */
+   static ByteBuffer encode(Order order, List<OrderEvent> events) {
+      List<byte[]> payloads = new ArrayList<>(1 + events.size());
+      payloads.add(OrderBinaryCodec.encode(order));
+      events.forEach(event -> payloads.add(encodeEvent(event)));
+
+      int size = payloads.stream().mapToInt(payload -> Integer.BYTES + payload.length).sum();
+      ByteBuffer records = ByteBuffer.allocate(size);
+      payloads.forEach(payload -> records.putInt(payload.length).put(payload));
+      return records.flip();
+   }
+
+   static boolean isEvent(byte[] payload) {
+      return payload.length > 0 && payload[0] == EVENT_MAGIC;
+   }
+
+   /**
+    * Decodes a record without its length prefix.
+    */
+   static Order decode(byte[] payload) {
+      return OrderBinaryCodec.decode(payload);
+   }
+
+   static OrderEvent decodeEvent(byte[] payload) {
+      try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload))) {
+         if (input.readByte() != EVENT_MAGIC) {
+            throw new IllegalArgumentException("Not an order event record");
+         }
+         byte type = input.readByte();
+         String orderId = input.readUTF();
+         String clientId = input.readUTF();
+         Instant occurredAt = Instant.ofEpochMilli(input.readLong());
+         return switch (type) {
+            case ORDER_PLACED -> new OrderPlaced(orderId, clientId, occurredAt);
+            case ORDER_REJECTED -> new OrderRejected(orderId, clientId, occurredAt);
+            default -> throw new IllegalArgumentException(String.format("Unknown order event type %s", type));
+         };
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   private static byte[] encodeEvent(OrderEvent event) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+      try (DataOutputStream output = new DataOutputStream(bytes)) {
+         output.writeByte(EVENT_MAGIC);
+         output.writeByte(event instanceof OrderPlaced ? ORDER_PLACED : ORDER_REJECTED);
+         output.writeUTF(event.orderId());
+         output.writeUTF(event.clientId());
+         output.writeLong(event.occurredAt().toEpochMilli());
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+      return bytes.toByteArray();
+   }
+}
@@ -0,0 +1,166 @@
+package pl.juraszek.sociabletests.adapter.driven.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.juraszek.sociabletests.domain.order.event.OrderEvent;
+import pl.juraszek.sociabletests.domain.order.event.OrderEventPublisher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Tails the order log and hands event records to an {@link OrderEventPublisher} in batches.
+ * Only the part of the log that is already synced to disk is read, so an event is never
+ * published for an order that could still be lost.
+ * <p>
+ * The position after the last published batch is kept in a checkpoint file and written only
+ * after the publisher returned. A failed batch is retried with exponential backoff and a batch
+ * published right before a crash is published again after restart (at-least-once). The relay
+ * reads the next batch only when the previous one was delivered, so a slow publisher holds back
+ * the relay, never the writers.
+ * <p>
+ * An event record that cannot be decoded would fail every retry of its batch, so it is logged,
+ * counted and skipped instead.
+ */
+@Slf4j
+class OutboxRelay implements AutoCloseable {
+
+   private final FileChannel channel;
+   private final LongSupplier durableSize;
+   private final OrderEventPublisher publisher;
+   private final Path checkpoint;
+   private final int batchSize;
+   private final long pollIntervalMillis;
+   private final long maxBackoffMillis;
+   private final AtomicLong published = new AtomicLong();
+   private final AtomicLong skipped = new AtomicLong();
+   private final Thread relay;
+   private volatile boolean running = true;
+   private long position;
+   private long skippedUntil;
+
+   OutboxRelay(Path log, LongSupplier durableSize, OrderEventPublisher publisher, OutboxRelayProperties properties) {
+      this.durableSize = durableSize;
+      this.publisher = publisher;
+      this.checkpoint = properties.checkpoint();
+      this.batchSize = properties.batchSize();
+      this.pollIntervalMillis = properties.pollInterval().toMillis();
+      this.maxBackoffMillis = properties.maxBackoff().toMillis();
+      try {
+         this.channel = FileChannel.open(log, StandardOpenOption.READ);
+         this.position = Files.exists(checkpoint) ? ByteBuffer.wrap(Files.readAllBytes(checkpoint)).getLong() : 0;
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+      this.relay = new Thread(this::relayLoop, "order-outbox-relay");
+      this.relay.setDaemon(true);
+      this.relay.start();
+   }
+
+   long publishedCount() {
+      return published.get();
+   }
+
+   long skippedCount() {
+      return skipped.get();
+   }
+
+   @Override
+   public void close() throws IOException, InterruptedException {
+      running = false;
+      relay.join();
+      channel.close();
+   }
+
+   private void relayLoop() {
+      long backoff = pollIntervalMillis;
+      while (running) {
+         try {
+            List<OrderEvent> events = new ArrayList<>(batchSize);
+            long end = readBatch(events);
+            if (!events.isEmpty()) {
+               publisher.publish(events);
+               published.addAndGet(events.size());
+            }
+            if (end != position) {
+               commit(end);
+            }
+            backoff = pollIntervalMillis;
+            if (events.size() < batchSize) {
+               sleep(pollIntervalMillis);
+            }
+         } catch (RuntimeException | IOException e) {
+            log.warn("Failed to relay order events from position {}, retrying in {} ms", position, backoff, e);
+            sleep(backoff);
+            backoff = Math.min(backoff * 2, maxBackoffMillis);
+         }
+      }
+   }
+
+   private long readBatch(List<OrderEvent> events) throws IOException {
+      long end = position;
+      long size = durableSize.getAsLong();
+      while (end + Integer.BYTES <= size && events.size() < batchSize) {
+         int length = read(end, Integer.BYTES).getInt();
+         byte[] payload = read(end + Integer.BYTES, length).array();
+         if (OrderRecords.isEvent(payload)) {
+            decode(payload, end).ifPresent(events::add);
+         }
+         end += Integer.BYTES + length;
+      }
+      return end;
+   }
+
+   /**
+    * A batch is read again when its publishing failed, the record is reported only the first time.
+    */
+   private Optional<OrderEvent> decode(byte[] payload, long at) {
+      try {
+         return Optional.of(OrderRecords.decodeEvent(payload));
+      } catch (RuntimeException e) {
+         if (at < skippedUntil) {
+            return Optional.empty();
+         }
+         skippedUntil = at + 1;
+         log.error("Skipping undecodable order event record of {} bytes at position {}", payload.length, at, e);
+         skipped.incrementAndGet();
+         return Optional.empty();
+      }
+   }
+
+   private ByteBuffer read(long from, int length) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      while (buffer.hasRemaining()) {
+         if (channel.read(buffer, from + buffer.position()) < 0) {
+            throw new IOException(String.format("Unexpected end of order log at position %s", from));
+         }
+      }
+      return buffer.flip();
+   }
+
+   private void commit(long end) throws IOException {
+      Path next = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+      Files.write(next, ByteBuffer.allocate(Long.BYTES).putLong(end).array());
+      Files.move(next, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      position = end;
+   }
+
+   private void sleep(long millis) {
+      try {
+         Thread.sleep(millis);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         running = false;
+      }
+   }
+}
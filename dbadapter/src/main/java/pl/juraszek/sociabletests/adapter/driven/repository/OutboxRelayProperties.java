@@ -0,0 +1,14 @@
+package pl.juraszek.sociabletests.adapter.driven.repository;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "order-repository.outbox")
+public record OutboxRelayProperties(@DefaultValue("orders.outbox") Path checkpoint,
+                                    @DefaultValue("256") int batchSize,
+                                    @DefaultValue("20ms") Duration pollInterval,
+                                    @DefaultValue("5s") Duration maxBackoff) {
+}
@@ -0,0 +1,99 @@
+package pl.juraszek.sociabletests.adapter.driven.catalog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileProductCatalogTest {
+
+   @TempDir
+   private Path directory;
+
+   @Test
+   void shouldLoadRowsAfterHeader() throws Exception {
+      // given
+      Path file = write("""
+            productId,premium,region,ageRestricted
+            premium_1,true,,false
+            wine,false,PL,true
+            """, Instant.ofEpochSecond(1));
+
+      // when
+      FileProductCatalog catalog = catalog(file);
+
+      // then
+      assertThat(catalog.isPremium("premium_1")).isTrue();
+      assertThat(catalog.isAgeRestricted("wine")).isTrue();
+      assertThat(catalog.region("wine")).contains("PL");
+      assertThat(catalog.region("premium_1")).isEmpty();
+      catalog.close();
+   }
+
+   @Test
+   void shouldReplaceSnapshotWhenFileIsModified() throws Exception {
+      // given
+      Path file = write("premium_1,true,,false\n", Instant.ofEpochSecond(1));
+      FileProductCatalog catalog = catalog(file);
+
+      // when
+      write("premium_1,false,,false\n", Instant.ofEpochSecond(2));
+      catalog.reloadIfModified();
+
+      // then
+      assertThat(catalog.isPremium("premium_1")).isFalse();
+      assertThat(catalog.version()).isEqualTo(1);
+      catalog.close();
+   }
+
+   @Test
+   void shouldKeepPreviousSnapshotWhenReloadedFileIsMalformed() throws Exception {
+      // given
+      Path file = write("premium_1,true,,false\n", Instant.ofEpochSecond(1));
+      FileProductCatalog catalog = catalog(file);
+
+      // when
+      write("premium_1,false,,false\nbroken,true\n", Instant.ofEpochSecond(2));
+      catalog.reloadIfModified();
+
+      // then
+      assertThat(catalog.isPremium("premium_1")).isTrue();
+      assertThat(catalog.version()).isZero();
+      catalog.close();
+   }
+
+   @Test
+   void shouldReportLineOfMalformedRow() throws Exception {
+      // given
+      Path file = write("""
+            productId,premium,region,ageRestricted
+            premium_1,true,,false
+            productIdentifier,yes,,false
+            """, Instant.ofEpochSecond(1));
+
+      // when
+      assertThatThrownBy(() -> catalog(file))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("line 3")
+            .hasMessageContaining("'yes'");
+   }
+
+   private Path write(String content, Instant modified) throws IOException {
+      Path file = directory.resolve("products.csv");
+      Files.writeString(file, content);
+      Files.setLastModifiedTime(file, FileTime.from(modified));
+      return file;
+   }
+
+   private FileProductCatalog catalog(Path file) {
+      return new FileProductCatalog(new FileProductCatalogProperties(file, Duration.ofHours(1)));
+   }
+}
@@ -0,0 +1,85 @@
+package pl.juraszek.sociabletests.adapter.driven.idempotency;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.juraszek.sociabletests.domain.order.IdempotencyKeyStore.Placement;
+import pl.juraszek.sociabletests.domain.order.Order;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileIdempotencyKeyStoreTest {
+
+   @TempDir
+   private Path directory;
+
+   private final AtomicLong now = new AtomicLong();
+
+   @Test
+   void shouldEvictOldestKeysAboveMaximumSize() throws Exception {
+      // given
+      FileIdempotencyKeyStore store = store();
+
+      // when
+      IntStream.range(0, 5).forEach(i -> store.put("key_" + i, placement("john_doe")));
+
+      // then
+      assertThat(store.size()).isEqualTo(3);
+      assertThat(store.find("key_1")).isEmpty();
+      assertThat(store.find("key_4")).isPresent();
+      store.close();
+   }
+
+   @Test
+   void shouldSweepExpiredKeysAndCompactLog() throws Exception {
+      // given
+      FileIdempotencyKeyStore store = store();
+      IntStream.range(0, 3).forEach(i -> store.put("key_" + i, placement("john_doe")));
+      now.set(Duration.ofMinutes(2).toMillis());
+      store.put("fresh", placement("jane_doe"));
+
+      // when
+      store.sweep();
+      store.close();
+      FileIdempotencyKeyStore reopened = store();
+
+      // then
+      assertThat(store.size()).isEqualTo(1);
+      assertThat(Files.readAllLines(directory.resolve("keys.log"))).hasSize(1).allMatch(line -> line.startsWith("fresh\t"));
+      assertThat(reopened.find("fresh")).isPresent();
+      reopened.close();
+   }
+
+   @Test
+   void shouldRestoreKeysWithSeparatorsAndStoredOrders() throws Exception {
+      // given
+      FileIdempotencyKeyStore store = store();
+      Placement placement = placement("jane_doe");
+      store.put("jane_doe:key\twith\nbreaks", placement);
+      store.close();
+
+      // when
+      FileIdempotencyKeyStore reopened = store();
+
+      // then
+      assertThat(Files.readAllLines(directory.resolve("keys.log"))).hasSize(1);
+      assertThat(reopened.find("jane_doe:key\twith\nbreaks")).contains(placement);
+      reopened.close();
+   }
+
+   private static Placement placement(String clientId) {
+      Order order = Order.init(clientId);
+      order.reject();
+      return new Placement("fingerprint", order);
+   }
+
+   private FileIdempotencyKeyStore store() {
+      return new FileIdempotencyKeyStore(new FileIdempotencyKeyStoreProperties(
+            directory.resolve("keys.log"), Duration.ofMinutes(1), 3, Duration.ofHours(1)), now::get);
+   }
+}
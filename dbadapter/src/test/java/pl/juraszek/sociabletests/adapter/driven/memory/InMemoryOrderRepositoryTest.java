@@ -0,0 +1,156 @@
+package pl.juraszek.sociabletests.adapter.driven.memory;
+
+import org.junit.jupiter.api.Test;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.OrderQuery;
+import pl.juraszek.sociabletests.domain.order.event.OrderEvent;
+import pl.juraszek.sociabletests.domain.order.event.OrderEventPublisher;
+import pl.juraszek.sociabletests.domain.order.event.OrderRejected;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryOrderRepositoryTest {
+
+   private static final int THREADS = 16;
+   private static final int ORDERS_PER_THREAD = 5000;
+
+   @Test
+   void shouldKeepEveryOrderSavedAndReadConcurrently() throws Exception {
+      // given
+      List<OrderEvent> published = new CopyOnWriteArrayList<>();
+      InMemoryOrderRepository repository = new InMemoryOrderRepository(
+            new InMemoryOrderRepositoryProperties(50, THREADS * ORDERS_PER_THREAD, Duration.ofHours(1), 1_000_000, 256, Duration.ofSeconds(1)), published::addAll);
+      ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+      // when
+      List<Future<List<Order>>> saved = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+         saved.add(executor.submit(() -> saveAndReadOrders(repository)));
+      }
+      List<Order> orders = new ArrayList<>();
+      for (Future<List<Order>> future : saved) {
+         orders.addAll(future.get());
+      }
+      executor.shutdown();
+      repository.close();
+
+      // then
+      assertThat(repository.shardCount()).isEqualTo(64);
+      assertThat(repository.size()).isEqualTo(orders.size());
+      assertThat(repository.evictionCount()).isZero();
+      assertThat(published).hasSize(orders.size() / 2);
+      assertThat(orders).allSatisfy(order -> assertThat(repository.findById(order.getId())).contains(order));
+   }
+
+   @Test
+   void shouldEvictOldestOrdersByCapacityAndAge() {
+      // given
+      AtomicLong now = new AtomicLong();
+      InMemoryOrderRepository repository = new InMemoryOrderRepository(
+            new InMemoryOrderRepositoryProperties(1, 3, Duration.ofSeconds(10), 100, 256, Duration.ofSeconds(1)), null, null, now::get);
+      List<Order> orders = IntStream.range(0, 4).mapToObj(i -> Order.init("john_doe")).toList();
+
+      // when
+      orders.forEach(repository::save);
+      now.set(Duration.ofSeconds(11).toNanos());
+      Order fresh = repository.save(Order.init("jane_doe"));
+
+      // then
+      assertThat(repository.findById(orders.get(0).getId())).isEmpty();
+      assertThat(repository.findById(orders.get(3).getId())).isEmpty();
+      assertThat(repository.findById(fresh.getId())).contains(fresh);
+      assertThat(repository.size()).isEqualTo(1);
+      assertThat(repository.evictionCount()).isEqualTo(4);
+   }
+
+   @Test
+   void shouldPageOrdersAcrossShards() {
+      // given
+      InMemoryOrderRepository repository = new InMemoryOrderRepository(
+            new InMemoryOrderRepositoryProperties(8, 1000, Duration.ofHours(1), 100, 256, Duration.ofSeconds(1)), null);
+      List<Order> orders = IntStream.range(0, 30).mapToObj(i -> {
+         Order order = Order.init(i % 3 == 0 ? "jane_doe" : "john_doe");
+         order.add(new Product("product_" + i, i));
+         if (i % 2 == 0) {
+            order.reject();
+         }
+         return order;
+      }).toList();
+      repository.saveAll(orders);
+
+      // when
+      List<Order> firstPage = repository.find(new OrderQuery("jane_doe", Order.Status.REJECTED, null, 3)).toList();
+      List<Order> secondPage = repository.find(new OrderQuery("jane_doe", Order.Status.REJECTED, firstPage.get(2).getId(), 3)).toList();
+
+      // then
+      List<String> expectedIds = orders.stream()
+            .filter(order -> order.getClientId().equals("jane_doe") && order.getStatus() == Order.Status.REJECTED)
+            .map(Order::getId)
+            .sorted()
+            .toList();
+      assertThat(firstPage).extracting(Order::getId).containsExactlyElementsOf(expectedIds.subList(0, 3));
+      assertThat(secondPage).extracting(Order::getId).containsExactlyElementsOf(expectedIds.subList(3, 5));
+      assertThat(firstPage.get(0).getProducts()).hasSize(1);
+   }
+
+   @Test
+   void shouldRetryFailedPublishesOffTheSavingThread() throws Exception {
+      // given
+      List<OrderEvent> published = new CopyOnWriteArrayList<>();
+      AtomicInteger failures = new AtomicInteger(2);
+      OrderEventPublisher flakyPublisher = events -> {
+         if (failures.getAndDecrement() > 0) {
+            throw new IllegalStateException("Broker unavailable");
+         }
+         published.addAll(events);
+      };
+      InMemoryOrderRepository repository = new InMemoryOrderRepository(
+            new InMemoryOrderRepositoryProperties(1, 100, Duration.ofHours(1), 100, 256, Duration.ofMillis(20)), flakyPublisher);
+      Order order = Order.init("john_doe");
+      order.reject();
+
+      // when
+      repository.save(order);
+      awaitPublished(repository, 1);
+      repository.close();
+
+      // then
+      assertThat(failures.get()).isNegative();
+      assertThat(published).singleElement().isInstanceOf(OrderRejected.class);
+   }
+
+   private void awaitPublished(InMemoryOrderRepository repository, int events) throws InterruptedException {
+      long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+      while (repository.publishedCount() < events && System.nanoTime() < deadline) {
+         Thread.sleep(5);
+      }
+   }
+
+   private List<Order> saveAndReadOrders(InMemoryOrderRepository repository) {
+      List<Order> orders = new ArrayList<>(ORDERS_PER_THREAD);
+      for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+         Order order = Order.init("client_" + i % 10);
+         order.add(new Product("product_" + i % 100, i));
+         repository.save(order);
+         if (i % 2 == 0) {
+            order.reject();
+            repository.save(order);
+         }
+         assertThat(repository.findById(order.getId())).contains(order);
+         orders.add(order);
+      }
+      return orders;
+   }
+}
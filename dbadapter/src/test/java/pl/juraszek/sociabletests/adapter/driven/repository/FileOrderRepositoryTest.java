@@ -0,0 +1,300 @@
+package pl.juraszek.sociabletests.adapter.driven.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.OrderQuery;
+import pl.juraszek.sociabletests.domain.order.event.OrderEvent;
+import pl.juraszek.sociabletests.domain.order.event.OrderEventPublisher;
+import pl.juraszek.sociabletests.domain.order.event.OrderRejected;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class FileOrderRepositoryTest {
+
+   private static final int THREADS = 16;
+   private static final int ORDERS_PER_THREAD = 1000;
+
+   @TempDir
+   private Path directory;
+
+   @Test
+   void shouldGroupConcurrentSavesIntoSharedFlushes() throws Exception {
+      // given
+      Path log = directory.resolve("orders.log");
+      FileOrderRepository repository = new FileOrderRepository(new FileOrderRepositoryProperties(log, Duration.ofMillis(2), 256, 100_000));
+      ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+      // when
+      List<Future<?>> savers = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+         savers.add(executor.submit(() -> saveOrders(repository)));
+      }
+      for (Future<?> saver : savers) {
+         saver.get();
+      }
+      executor.shutdown();
+      repository.close();
+
+      // then
+      assertThat(repository.writeCount()).isEqualTo(THREADS * ORDERS_PER_THREAD);
+      assertThat(repository.flushCount()).isLessThan(repository.writeCount());
+      assertThat(countRecords(log)).isEqualTo(THREADS * ORDERS_PER_THREAD);
+   }
+
+   @Test
+   void shouldCompleteEverySaveRacingWithClose() throws Exception {
+      // given
+      FileOrderRepository repository = new FileOrderRepository(
+            new FileOrderRepositoryProperties(directory.resolve("orders.log"), Duration.ofMillis(1), 64, 100_000));
+      ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+      List<Future<?>> savers = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+         savers.add(executor.submit(() -> {
+            while (true) {
+               try {
+                  repository.save(Order.init("john_doe"));
+               } catch (IllegalStateException e) {
+                  return;
+               }
+            }
+         }));
+      }
+
+      // when
+      Thread.sleep(50);
+      repository.close();
+
+      // then
+      for (Future<?> saver : savers) {
+         saver.get(5, TimeUnit.SECONDS);
+      }
+      executor.shutdown();
+   }
+
+   @Test
+   void shouldFindOrdersByIndexesAfterReopening() throws Exception {
+      // given
+      Path log = directory.resolve("orders.log");
+      FileOrderRepositoryProperties properties = new FileOrderRepositoryProperties(log, Duration.ofMillis(1), 64, 100_000);
+      FileOrderRepository repository = new FileOrderRepository(properties);
+      List<Order> orders = IntStream.range(0, 30).mapToObj(i -> {
+         Order order = Order.init(i % 3 == 0 ? "jane_doe" : "john_doe");
+         order.add(new Product("product_" + i, i));
+         if (i % 2 == 0) {
+            order.reject();
+         }
+         return order;
+      }).toList();
+      repository.saveAll(orders);
+      repository.close();
+
+      // when
+      FileOrderRepository reopened = new FileOrderRepository(properties);
+      List<Order> firstPage = reopened.find(new OrderQuery("jane_doe", Order.Status.REJECTED, null, 3)).toList();
+      List<Order> secondPage = reopened.find(new OrderQuery("jane_doe", Order.Status.REJECTED, firstPage.get(2).getId(), 3)).toList();
+      reopened.close();
+
+      // then
+      List<String> expectedIds = orders.stream()
+            .filter(order -> order.getClientId().equals("jane_doe") && order.getStatus() == Order.Status.REJECTED)
+            .map(Order::getId)
+            .sorted()
+            .toList();
+      assertThat(firstPage).extracting(Order::getId).containsExactlyElementsOf(expectedIds.subList(0, 3));
+      assertThat(secondPage).extracting(Order::getId).containsExactlyElementsOf(expectedIds.subList(3, 5));
+      assertThat(firstPage.get(0).getProducts()).hasSize(1);
+   }
+
+   @Test
+   void shouldFindOrdersSpilledToIndexSegments() throws Exception {
+      // given
+      FileOrderRepositoryProperties properties = new FileOrderRepositoryProperties(
+            directory.resolve("orders.log"), Duration.ofMillis(1), 64, 8);
+      FileOrderRepository repository = new FileOrderRepository(properties);
+      List<Order> orders = IntStream.range(0, 100).mapToObj(i -> Order.init(i % 4 == 0 ? "jane_doe" : "john_doe")).toList();
+      repository.saveAll(orders);
+      orders.stream().filter(order -> order.getClientId().equals("jane_doe")).forEach(order -> {
+         order.reject();
+         repository.save(order);
+      });
+      repository.close();
+
+      // when
+      FileOrderRepository reopened = new FileOrderRepository(properties);
+      List<Order> rejected = reopened.find(new OrderQuery(null, Order.Status.REJECTED, null, 100)).toList();
+      List<Order> stillNew = reopened.find(new OrderQuery("jane_doe", Order.Status.NEW, null, 100)).toList();
+      var found = reopened.findById(orders.get(1).getId());
+      int indexSegments = reopened.indexSegmentCount();
+      reopened.close();
+
+      // then
+      assertThat(rejected).extracting(Order::getId).containsExactlyElementsOf(orders.stream()
+            .filter(order -> order.getClientId().equals("jane_doe"))
+            .map(Order::getId)
+            .sorted()
+            .toList());
+      assertThat(stillNew).isEmpty();
+      assertThat(found).contains(orders.get(1));
+      assertThat(indexSegments).isBetween(1, 7);
+   }
+
+   @Test
+   void shouldPublishBatchAndLatencyMeters() throws Exception {
+      // given
+      SimpleMeterRegistry registry = new SimpleMeterRegistry();
+      FileOrderRepository repository = new FileOrderRepository(
+            new FileOrderRepositoryProperties(directory.resolve("orders.log"), Duration.ofMillis(1), 64, 100_000), null, null, registry);
+
+      // when
+      repository.saveAll(IntStream.range(0, 10).mapToObj(i -> Order.init("john_doe")).toList());
+      repository.close();
+
+      // then
+      assertThat(registry.get("order.repository.file.commit").timer().count()).isEqualTo(10);
+      assertThat(registry.get("order.repository.file.fsync").timer().count()).isEqualTo(repository.flushCount());
+      assertThat(registry.get("order.repository.file.batch.size").summary().totalAmount()).isEqualTo(10);
+   }
+
+   @Test
+   void shouldFindSavedOrderById() throws Exception {
+      // given
+      FileOrderRepository repository = new FileOrderRepository(
+            new FileOrderRepositoryProperties(directory.resolve("orders.log"), Duration.ofMillis(1), 64, 100_000));
+      Order order = Order.init("john_doe");
+      order.add(new Product("product_1", 3));
+      repository.save(order);
+
+      // when
+      var found = repository.findById(order.getId());
+      repository.close();
+
+      // then
+      assertThat(found).contains(order);
+   }
+
+   @Test
+   void shouldRelayEventsAtLeastOnceAcrossFailuresAndRestarts() throws Exception {
+      // given
+      FileOrderRepositoryProperties properties = new FileOrderRepositoryProperties(directory.resolve("orders.log"), Duration.ofMillis(1), 64, 100_000);
+      OutboxRelayProperties outbox = new OutboxRelayProperties(directory.resolve("orders.outbox"), 4, Duration.ofMillis(5), Duration.ofMillis(20));
+      List<OrderEvent> published = new CopyOnWriteArrayList<>();
+      AtomicInteger failures = new AtomicInteger(2);
+      OrderEventPublisher flakyPublisher = events -> {
+         if (failures.getAndDecrement() > 0) {
+            throw new IllegalStateException("Broker unavailable");
+         }
+         published.addAll(events);
+      };
+      FileOrderRepository repository = new FileOrderRepository(properties, flakyPublisher, outbox);
+      List<Order> orders = IntStream.range(0, 10).mapToObj(i -> {
+         Order order = Order.init("john_doe");
+         order.add(new Product("product_" + i, 1));
+         order.reject();
+         return order;
+      }).toList();
+
+      // when
+      repository.saveAll(orders);
+      awaitPublished(repository, orders.size());
+      repository.close();
+      FileOrderRepository reopened = new FileOrderRepository(properties, published::addAll, outbox);
+      Order another = Order.init("jane_doe");
+      another.reject();
+      reopened.save(another);
+      awaitPublished(reopened, 1);
+      reopened.close();
+
+      // then
+      assertThat(published).hasSize(orders.size() + 1).allMatch(OrderRejected.class::isInstance);
+      assertThat(published).extracting(OrderEvent::orderId)
+            .containsExactlyElementsOf(IntStream.range(0, orders.size() + 1)
+                  .mapToObj(i -> i < orders.size() ? orders.get(i).getId() : another.getId())
+                  .toList());
+   }
+
+   @Test
+   void shouldSkipUndecodableEventRecords() throws Exception {
+      // given
+      Path log = directory.resolve("orders.log");
+      Files.write(log, new byte[]{0, 0, 0, 2, 0x45, 1});
+      FileOrderRepositoryProperties properties = new FileOrderRepositoryProperties(log, Duration.ofMillis(1), 64, 100_000);
+      OutboxRelayProperties outbox = new OutboxRelayProperties(directory.resolve("orders.outbox"), 4, Duration.ofMillis(5), Duration.ofMillis(20));
+      List<OrderEvent> published = new CopyOnWriteArrayList<>();
+      FileOrderRepository repository = new FileOrderRepository(properties, published::addAll, outbox);
+      Order order = Order.init("john_doe");
+      order.reject();
+
+      // when
+      repository.save(order);
+      awaitPublished(repository, 1);
+      repository.close();
+
+      // then
+      assertThat(repository.skippedEventCount()).isEqualTo(1);
+      assertThat(published).extracting(OrderEvent::orderId).containsExactly(order.getId());
+   }
+
+   @Test
+   void shouldReturnEventsToOrderWhenSaveFails() throws Exception {
+      // given
+      FileOrderRepository repository = new FileOrderRepository(
+            new FileOrderRepositoryProperties(directory.resolve("orders.log"), Duration.ofMillis(1), 64, 100_000));
+      repository.close();
+      Order order = Order.init("john_doe");
+      order.reject();
+
+      // when
+      Throwable failure = catchThrowable(() -> repository.save(order));
+
+      // then
+      assertThat(failure).isInstanceOf(IllegalStateException.class);
+      assertThat(order.pullEvents()).singleElement().isInstanceOf(OrderRejected.class);
+   }
+
+   private void awaitPublished(FileOrderRepository repository, int events) throws InterruptedException {
+      long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+      while (repository.publishedCount() < events && System.nanoTime() < deadline) {
+         Thread.sleep(5);
+      }
+   }
+
+   private void saveOrders(FileOrderRepository repository) {
+      for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+         Order order = Order.init("client_" + i % 10);
+         order.add(new Product("product_" + i % 100, i));
+         repository.save(order);
+      }
+   }
+
+   private int countRecords(Path log) throws IOException {
+      int records = 0;
+      try (DataInputStream input = new DataInputStream(Files.newInputStream(log))) {
+         while (true) {
+            input.skipNBytes(input.readInt());
+            records++;
+         }
+      } catch (EOFException e) {
+         return records;
+      }
+   }
+}
@@ -0,0 +1,19 @@
+package pl.juraszek.sociabletests.domain.order;
+
+import org.springframework.lang.NonNull;
+
+import java.util.Optional;
+
+public interface IdempotencyKeyStore {
+
+   @NonNull Optional<Placement> find(@NonNull String key);
+
+   void put(@NonNull String key, @NonNull Placement placement);
+
+   /**
+    * Order placed for a key together with the fingerprint of the request that placed it, so a
+    * key reused for a different request can be told apart from a retry.
+    */
+   record Placement(@NonNull String fingerprint, @NonNull Order order) {
+   }
+}
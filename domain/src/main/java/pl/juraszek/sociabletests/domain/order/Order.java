@@ -3,25 +3,46 @@ package pl.juraszek.sociabletests.domain.order;
 import io.vavr.control.Either;
 import lombok.*;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import pl.juraszek.sociabletests.domain.client.Client;
 import pl.juraszek.sociabletests.domain.order.access.OrderAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessException;
 import pl.juraszek.sociabletests.domain.order.access.ProductAccessExceptions;
+import pl.juraszek.sociabletests.domain.order.event.OrderEvent;
+import pl.juraszek.sociabletests.domain.order.event.OrderPlaced;
+import pl.juraszek.sociabletests.domain.order.event.OrderRejected;
 import pl.juraszek.sociabletests.domain.order.product.Product;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalog;
+import pl.juraszek.sociabletests.domain.order.product.ProductLines;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
-@AllArgsConstructor(access = AccessLevel.PACKAGE)
 @EqualsAndHashCode
 @ToString
 public class Order {
+   private static final String REPORT_HEADER = "Order report:";
+
    @Getter
    private final String id;
 
+   /**
+    * Mutable while the order is new, compacted to {@link ProductLines} once it is placed or rejected.
+    */
    @Getter
-   private final List<Product> products;
+   private List<Product> products;
 
    @Getter
    private final String clientId;
@@ -29,13 +50,57 @@ public class Order {
    @Getter
    private Status status;
 
+   @EqualsAndHashCode.Exclude
+   @ToString.Exclude
+   private Map<String, Integer> lines = new HashMap<>();
+
+   @EqualsAndHashCode.Exclude
+   @ToString.Exclude
+   private Verdict verdict;
+
+   @EqualsAndHashCode.Exclude
+   @ToString.Exclude
+   private final List<OrderEvent> events = new ArrayList<>();
+
+   Order(String id, List<Product> products, String clientId, Status status) {
+      this(id, products, clientId, status, null);
+   }
+
+   private Order(String id, List<Product> products, String clientId, Status status, @Nullable ProductCatalog catalog) {
+      this.id = id;
+      this.products = products;
+      this.clientId = clientId;
+      this.status = status;
+      if (status == Status.NEW) {
+         for (int line = 0; line < products.size(); line++) {
+            lines.put(products.get(line).productId(), line);
+         }
+      } else {
+         compact(catalog);
+      }
+   }
+
    public static @NonNull Order init(@NonNull String clientId) {
       return new Order(UUID.randomUUID().toString(), new ArrayList<>(), clientId, Status.NEW);
    }
 
+   public static @NonNull Order restore(@NonNull String id, @NonNull List<Product> products, @NonNull String clientId,
+                                        @NonNull Status status) {
+      return new Order(id, status == Status.NEW ? new ArrayList<>(products) : products, clientId, status);
+   }
+
+   /**
+    * Restores a placed or rejected order with product ids shared with the catalog, see
+    * {@link ProductCatalog#canonicalId(String)}. Ids of a new order are kept as they are.
+    */
+   public static @NonNull Order restore(@NonNull String id, @NonNull List<Product> products, @NonNull String clientId,
+                                        @NonNull Status status, @NonNull ProductCatalog catalog) {
+      return new Order(id, status == Status.NEW ? new ArrayList<>(products) : products, clientId, status, catalog);
+   }
+
    public void add(Product product) {
       if (isOrderActive()) {
-         products.add(product);
+         addLine(product);
       }
    }
 
@@ -45,33 +110,156 @@ public class Order {
 
    public void add(List<Product> newProducts) {
       if (isOrderActive()) {
-         products.addAll(newProducts);
+         newProducts.forEach(this::addLine);
+      }
+   }
+
+   /**
+    * Starts keeping a running access verdict for the given client. Every product added later is
+    * checked on its own, so placing the order for the same client and policy does not re-check
+    * the whole basket.
+    */
+   public void trackAccess(Client client, OrderAccessPolicy accessPolicy) {
+      verdict = new Verdict(client, accessPolicy, accessPolicy.version());
+      for (int line = 0; line < products.size(); line++) {
+         verdict.evaluate(line);
       }
    }
 
    public Either<ProductAccessExceptions, Order> place(Client client, OrderAccessPolicy accessPolicy) {
-      return accessPolicy.check(this, client).map(this::orderSuccessfullyPlaced);
+      Either<ProductAccessExceptions, Boolean> result = verdict != null && verdict.isFor(client, accessPolicy)
+            ? verdict.result()
+            : accessPolicy.check(this, client);
+      return result.map(this::orderSuccessfullyPlaced);
+   }
+
+   private void addLine(Product product) {
+      Integer line = lines.get(product.productId());
+      if (line == null) {
+         line = products.size();
+         products.add(product);
+         lines.put(product.productId(), line);
+      } else {
+         products.set(line, new Product(product.productId(), products.get(line).amount() + product.amount()));
+      }
+      if (verdict != null) {
+         verdict.evaluate(line);
+      }
    }
 
    private Order orderSuccessfullyPlaced(Boolean result) {
-      this.status = Status.PLACED;
+      if (status != Status.PLACED) {
+         this.status = Status.PLACED;
+         events.add(new OrderPlaced(id, clientId, Instant.now()));
+         compact(null);
+      }
       return this;
    }
 
    public String renderReport() {
-      return String.format("Order report:%n %s",
-            products.stream().map(Product::render).collect(Collectors.joining("\n")));
+      StringBuilder report = new StringBuilder(REPORT_HEADER.length() + 2 + products.size() * 32);
+      try {
+         renderReport(report);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+      return report.toString();
+   }
+
+   /**
+    * Writes the same report as {@link #renderReport()} line by line, without building it in memory.
+    */
+   public void renderReport(Appendable output) throws IOException {
+      output.append(REPORT_HEADER).append(System.lineSeparator()).append(' ');
+      for (int line = 0; line < products.size(); line++) {
+         if (line > 0) {
+            output.append('\n');
+         }
+         products.get(line).render(output);
+      }
+   }
+
+   public void renderReport(OutputStream output) throws IOException {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+      renderReport(writer);
+      writer.flush();
    }
 
    public void reject() {
       if (isOrderActive()) {
          status = Status.REJECTED;
+         events.add(new OrderRejected(id, clientId, Instant.now()));
+         compact(null);
       }
    }
 
+   /**
+    * Products of a placed or rejected order can no longer change, so the line lookup and the
+    * running verdict are dropped and lines are kept in their compact form.
+    */
+   private void compact(@Nullable ProductCatalog catalog) {
+      products = catalog == null ? ProductLines.copyOf(products) : ProductLines.copyOf(products, catalog::canonicalId);
+      lines = Map.of();
+      verdict = null;
+   }
+
+   /**
+    * Returns events recorded since the last call and forgets them, they are meant to be
+    * persisted together with the order.
+    */
+   public List<OrderEvent> pullEvents() {
+      List<OrderEvent> pulled = List.copyOf(events);
+      events.clear();
+      return pulled;
+   }
+
+   /**
+    * Returns events recorded since the last pull without forgetting them, e.g. to journal them
+    * before the order is persisted.
+    */
+   public List<OrderEvent> pendingEvents() {
+      return List.copyOf(events);
+   }
+
+   /**
+    * Puts back events pulled for a save that failed, ahead of events recorded since, so they are
+    * persisted with the next save.
+    */
+   public void returnEvents(List<OrderEvent> pulled) {
+      events.addAll(0, pulled);
+   }
+
    public enum Status {
       NEW,
       PLACED,
       REJECTED
    }
+
+   @RequiredArgsConstructor
+   private class Verdict {
+      private final Client client;
+      private final OrderAccessPolicy accessPolicy;
+      private final long policyVersion;
+      private final TreeMap<Integer, List<ProductAccessException>> violations = new TreeMap<>();
+
+      private boolean isFor(Client client, OrderAccessPolicy accessPolicy) {
+         return this.client.equals(client) && this.accessPolicy == accessPolicy && accessPolicy.version() == policyVersion;
+      }
+
+      private void evaluate(int line) {
+         Either<ProductAccessExceptions, Boolean> result = accessPolicy.check(products.get(line), client);
+         if (result.isLeft()) {
+            violations.put(line, result.getLeft().getExceptions());
+         } else {
+            violations.remove(line);
+         }
+      }
+
+      private Either<ProductAccessExceptions, Boolean> result() {
+         if (violations.isEmpty()) {
+            return Either.right(true);
+         }
+         return Either.left(new ProductAccessExceptions(violations.values().stream().flatMap(List::stream).toList()));
+      }
+   }
 }
@@ -0,0 +1,10 @@
+package pl.juraszek.sociabletests.domain.order;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Keyset page of orders ordered by id. Every filter is optional, {@code after} is the id of the
+ * last order of the previous page.
+ */
+public record OrderQuery(@Nullable String clientId, @Nullable Order.Status status, @Nullable String after, int limit) {
+}
@@ -1,5 +1,15 @@
 package pl.juraszek.sociabletests.domain.order;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 public interface OrderRepository {
    Order save(Order order);
+
+   List<Order> saveAll(List<Order> orders);
+
+   Optional<Order> findById(String id);
+
+   Stream<Order> find(OrderQuery query);
 }
@@ -1,10 +1,28 @@
 package pl.juraszek.sociabletests.domain.order;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public class OrderRepositoryStub implements OrderRepository{
    @Override
    public Order save(Order order) {
       return new Order(UUID.randomUUID().toString(), order.getProducts(), order.getClientId(), order.getStatus());
    }
+
+   @Override
+   public List<Order> saveAll(List<Order> orders) {
+      return orders.stream().map(this::save).toList();
+   }
+
+   @Override
+   public Optional<Order> findById(String id) {
+      return Optional.empty();
+   }
+
+   @Override
+   public Stream<Order> find(OrderQuery query) {
+      return Stream.empty();
+   }
 }
@@ -0,0 +1,17 @@
+package pl.juraszek.sociabletests.domain.order.access;
+
+import org.springframework.lang.Nullable;
+import pl.juraszek.sociabletests.domain.client.Client;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+/**
+ * Product policy whose verdict can be reused by {@link OrderAccessPolicy} for every check with an
+ * equal cache key. The key has to cover everything the verdict depends on.
+ */
+public interface CacheableProductAccessPolicy extends ProductAccessPolicy {
+
+   /**
+    * @return key of the verdict, or null when this check must not be cached
+    */
+   @Nullable Object cacheKey(Product product, Client client);
+}
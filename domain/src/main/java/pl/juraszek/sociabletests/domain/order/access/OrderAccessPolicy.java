@@ -1,41 +1,205 @@
 package pl.juraszek.sociabletests.domain.order.access;
 
 import io.vavr.control.Either;
-import lombok.RequiredArgsConstructor;
+import org.springframework.lang.Nullable;
 import pl.juraszek.sociabletests.domain.client.Client;
 import pl.juraszek.sociabletests.domain.order.Order;
 import pl.juraszek.sociabletests.domain.order.product.Product;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
-@RequiredArgsConstructor
+/**
+ * Checks every product of an order against every product policy. Policies are copied into an
+ * array once, and nothing is allocated unless some policy rejects a product. In fail-fast mode
+ * the check stops at the first violation, otherwise all violations are collected.
+ * <p>
+ * Baskets of at least {@code parallelThreshold} products are split across the given
+ * {@link ForkJoinPool}, product policies have to be thread safe then. Violations are merged in
+ * product order, so the result is the same as of the sequential check. Smaller baskets are
+ * checked on the caller thread.
+ * <p>
+ * Verdicts of {@link CacheableProductAccessPolicy} policies are kept in an optional
+ * {@link VerdictCache} and reused for checks with an equal cache key. {@link #reconfigure(List)}
+ * swaps the policies at once and drops cached verdicts.
+ */
 public class OrderAccessPolicy {
 
-   private final List<ProductAccessPolicy> productPolicies;
+   private static final Either<ProductAccessExceptions, Boolean> ACCESS_GRANTED = Either.right(true);
+   private static final int MIN_SEGMENT_SIZE = 64;
+
+   private final boolean failFast;
+   private final ForkJoinPool pool;
+   private final int parallelThreshold;
+   private final VerdictCache verdictCache;
+   private volatile Policies policies;
+
+   public OrderAccessPolicy(List<ProductAccessPolicy> productPolicies) {
+      this(productPolicies, false);
+   }
+
+   public OrderAccessPolicy(List<ProductAccessPolicy> productPolicies, boolean failFast) {
+      this(productPolicies, failFast, null, Integer.MAX_VALUE);
+   }
+
+   public OrderAccessPolicy(List<ProductAccessPolicy> productPolicies, boolean failFast, @Nullable ForkJoinPool pool,
+                            int parallelThreshold) {
+      this(productPolicies, failFast, pool, parallelThreshold, null);
+   }
+
+   public OrderAccessPolicy(List<ProductAccessPolicy> productPolicies, boolean failFast, @Nullable ForkJoinPool pool,
+                            int parallelThreshold, @Nullable VerdictCache verdictCache) {
+      this.failFast = failFast;
+      this.pool = pool;
+      this.parallelThreshold = pool == null ? Integer.MAX_VALUE : parallelThreshold;
+      this.verdictCache = verdictCache;
+      this.policies = Policies.of(productPolicies, 0);
+   }
 
    public Either<ProductAccessExceptions, Boolean> check(Order order, Client client) {
-      List<Either<ProductAccessExceptions, Boolean>> results = order.getProducts()
-            .stream()
-            .map(product -> check(product, client))
-            .toList();
+      Policies current = policies;
+      List<Product> products = order.getProducts();
+      List<ProductAccessException> errors = products.size() >= parallelThreshold
+            ? checkInParallel(current, products, client)
+            : check(current, products, 0, products.size(), client, null);
+      return errors == null ? ACCESS_GRANTED : Either.left(new ProductAccessExceptions(errors));
+   }
+
+   public Either<ProductAccessExceptions, Boolean> check(Product product, Client client) {
+      List<ProductAccessException> errors = check(policies, product, client, null);
+      return errors == null ? ACCESS_GRANTED : Either.left(new ProductAccessExceptions(errors));
+   }
+
+   /**
+    * Replaces product policies for checks started from now on and drops all cached verdicts.
+    */
+   public synchronized void reconfigure(List<ProductAccessPolicy> productPolicies) {
+      policies = Policies.of(productPolicies, policies.version() + 1);
+      invalidateVerdicts();
+   }
 
-      List<ProductAccessException> errors = results.stream()
-            .filter(Either::isLeft)
-            .map(Either::getLeft)
-            .flatMap(productAccessExceptions -> productAccessExceptions.getExceptions().stream())
-            .toList();
+   public void invalidateVerdicts() {
+      if (verdictCache != null) {
+         verdictCache.invalidateAll();
+      }
+   }
 
-      return errors.isEmpty() ? Either.right(true) : Either.left(new ProductAccessExceptions(errors));
+   /**
+    * Changes on every {@link #reconfigure(List)}, a verdict computed with an older version is stale.
+    */
+   public long version() {
+      return policies.version();
+   }
 
+   private List<ProductAccessException> checkInParallel(Policies current, List<Product> products, Client client) {
+      int segmentSize = Math.max(MIN_SEGMENT_SIZE, products.size() / (pool.getParallelism() * 4));
+      List<ProductAccessException> errors = pool.invoke(
+            new CheckTask(current, products, client, 0, products.size(), segmentSize, new AtomicInteger(Integer.MAX_VALUE)));
+      return errors != null && failFast ? List.of(errors.get(0)) : errors;
    }
 
-   private Either<ProductAccessExceptions, Boolean> check(Product product, Client client) {
-      List<Either<ProductAccessException, Boolean>> result = productPolicies.stream()
-            .map(productAccessPolicy -> productAccessPolicy.check(product, client))
-            .toList();
-      List<ProductAccessException> errors = result.stream().filter(Either::isLeft).map(Either::getLeft).toList();
-      return errors.isEmpty() ? Either.right(true) : Either.left(new ProductAccessExceptions(errors));
+   private List<ProductAccessException> check(Policies current, List<Product> products, int from, int to, Client client,
+                                              List<ProductAccessException> errors) {
+      for (int i = from; i < to; i++) {
+         errors = check(current, products.get(i), client, errors);
+         if (errors != null && failFast) {
+            break;
+         }
+      }
+      return errors;
+   }
 
+   private List<ProductAccessException> check(Policies current, Product product, Client client,
+                                              List<ProductAccessException> errors) {
+      for (int i = 0; i < current.policies().length; i++) {
+         Either<ProductAccessException, Boolean> result = check(current, i, product, client);
+         if (result.isLeft()) {
+            if (errors == null) {
+               errors = new ArrayList<>();
+            }
+            errors.add(result.getLeft());
+            if (failFast) {
+               return errors;
+            }
+         }
+      }
+      return errors;
    }
 
+   private Either<ProductAccessException, Boolean> check(Policies current, int policy, Product product, Client client) {
+      CacheableProductAccessPolicy cacheable = current.cacheable()[policy];
+      Object key = verdictCache == null || cacheable == null ? null : cacheable.cacheKey(product, client);
+      if (key == null) {
+         return current.policies()[policy].check(product, client);
+      }
+      return verdictCache.get(current.version(), policy, key, () -> cacheable.check(product, client));
+   }
+
+   private record Policies(ProductAccessPolicy[] policies, CacheableProductAccessPolicy[] cacheable, long version) {
+
+      private static Policies of(List<ProductAccessPolicy> productPolicies, long version) {
+         ProductAccessPolicy[] policies = productPolicies.toArray(ProductAccessPolicy[]::new);
+         CacheableProductAccessPolicy[] cacheable = new CacheableProductAccessPolicy[policies.length];
+         for (int i = 0; i < policies.length; i++) {
+            if (policies[i] instanceof CacheableProductAccessPolicy cacheablePolicy) {
+               cacheable[i] = cacheablePolicy;
+            }
+         }
+         return new Policies(policies, cacheable, version);
+      }
+   }
+
+   private class CheckTask extends RecursiveTask<List<ProductAccessException>> {
+      private final Policies current;
+      private final List<Product> products;
+      private final Client client;
+      private final int from;
+      private final int to;
+      private final int segmentSize;
+      private final AtomicInteger firstViolation;
+
+      private CheckTask(Policies current, List<Product> products, Client client, int from, int to, int segmentSize,
+                        AtomicInteger firstViolation) {
+         this.current = current;
+         this.products = products;
+         this.client = client;
+         this.from = from;
+         this.to = to;
+         this.segmentSize = segmentSize;
+         this.firstViolation = firstViolation;
+      }
+
+      @Override
+      protected List<ProductAccessException> compute() {
+         if (to - from <= segmentSize) {
+            return checkSegment();
+         }
+         int middle = (from + to) >>> 1;
+         CheckTask right = new CheckTask(current, products, client, middle, to, segmentSize, firstViolation);
+         right.fork();
+         List<ProductAccessException> leftErrors = new CheckTask(current, products, client, from, middle, segmentSize, firstViolation).compute();
+         List<ProductAccessException> rightErrors = right.join();
+         if (leftErrors == null) {
+            return rightErrors;
+         }
+         if (rightErrors != null) {
+            leftErrors.addAll(rightErrors);
+         }
+         return leftErrors;
+      }
+
+      private List<ProductAccessException> checkSegment() {
+         if (failFast && firstViolation.get() < from) {
+            return null;
+         }
+         List<ProductAccessException> errors = check(current, products, from, to, client, null);
+         if (errors != null && failFast) {
+            firstViolation.accumulateAndGet(from, Math::min);
+         }
+         return errors;
+      }
+   }
 }
@@ -1,22 +1,28 @@
 package pl.juraszek.sociabletests.domain.order.access;
 
 import io.vavr.control.Either;
+import lombok.RequiredArgsConstructor;
 import pl.juraszek.sociabletests.domain.client.Client;
 import pl.juraszek.sociabletests.domain.order.product.Product;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalog;
 
-import java.util.List;
+@RequiredArgsConstructor
+public class PremiumProductPolicy implements CacheableProductAccessPolicy {
 
-public class PremiumProductPolicy implements ProductAccessPolicy {
-
-   private static final List<String> PREMIUM_PRODUCTS = List.of("premium_1", "premium_2");
+   private final ProductCatalog productCatalog;
 
    @Override
    public Either<ProductAccessException, Boolean> check(Product product, Client client) {
       if (isPremium(product) && !hasPremiumSubscription(client)) {
          return Either.left(new ProductAccessException(
-               String.format("Client %s cannot access premium product %s", client.name(), product.productId()), product.productId()));
+               String.format("Premium product %s requires a premium subscription", product.productId()), product.productId()));
       }
-      return Either.right(true);
+      return ACCESS_GRANTED;
+   }
+
+   @Override
+   public Object cacheKey(Product product, Client client) {
+      return new CacheKey(product.productId(), client.hasPremiumSubscription(), productCatalog.version());
    }
 
    private boolean hasPremiumSubscription(Client client) {
@@ -24,6 +30,9 @@ public class PremiumProductPolicy implements ProductAccessPolicy {
    }
 
    private boolean isPremium(Product product) {
-      return PREMIUM_PRODUCTS.contains(product.productId());
+      return productCatalog.isPremium(product.productId());
+   }
+
+   private record CacheKey(String productId, boolean premiumSubscription, long catalogVersion) {
    }
 }
@@ -5,5 +5,7 @@ import pl.juraszek.sociabletests.domain.client.Client;
 import pl.juraszek.sociabletests.domain.order.product.Product;
 
 public interface ProductAccessPolicy {
+   Either<ProductAccessException, Boolean> ACCESS_GRANTED = Either.right(true);
+
    Either<ProductAccessException, Boolean> check(Product product, Client client);
 }
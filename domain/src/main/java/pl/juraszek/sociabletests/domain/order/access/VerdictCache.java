@@ -0,0 +1,74 @@
+package pl.juraszek.sociabletests.domain.order.access;
+
+import io.vavr.control.Either;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Bounded concurrent cache of product policy verdicts. Entries expire after the given ttl.
+ * Once the cache holds more than {@code maximumSize} entries the oldest ones are evicted, which
+ * with a single ttl are also the first to expire. Every writer evicts only what it pushed over
+ * the limit, so concurrent writers may exceed {@code maximumSize} by one entry each for a moment.
+ */
+public class VerdictCache {
+
+   private final Map<Key, Entry> verdicts = new ConcurrentHashMap<>();
+   private final Queue<Key> insertionOrder = new ConcurrentLinkedQueue<>();
+   private final int maximumSize;
+   private final long ttlNanos;
+
+   public VerdictCache(int maximumSize, Duration ttl) {
+      this.maximumSize = maximumSize;
+      this.ttlNanos = ttl.toNanos();
+   }
+
+   Either<ProductAccessException, Boolean> get(long version, int policy, Object key,
+                                               Supplier<Either<ProductAccessException, Boolean>> check) {
+      Key cacheKey = new Key(version, policy, key);
+      long now = System.nanoTime();
+      Entry entry = verdicts.get(cacheKey);
+      if (entry != null && entry.expiresAt() - now > 0) {
+         return entry.verdict();
+      }
+      Either<ProductAccessException, Boolean> verdict = check.get();
+      if (verdicts.put(cacheKey, new Entry(verdict, now + ttlNanos)) == null) {
+         insertionOrder.add(cacheKey);
+         evictOverflow();
+      }
+      return verdict;
+   }
+
+   /**
+    * The order is cleared first, so a concurrent put can leave a key in the order without an
+    * entry, which eviction skips, but never an entry without its key.
+    */
+   public void invalidateAll() {
+      insertionOrder.clear();
+      verdicts.clear();
+   }
+
+   public int size() {
+      return verdicts.size();
+   }
+
+   private void evictOverflow() {
+      while (verdicts.size() > maximumSize) {
+         Key oldest = insertionOrder.poll();
+         if (oldest == null) {
+            return;
+         }
+         verdicts.remove(oldest);
+      }
+   }
+
+   private record Key(long version, int policy, Object key) {
+   }
+
+   private record Entry(Either<ProductAccessException, Boolean> verdict, long expiresAt) {
+   }
+}
@@ -0,0 +1,220 @@
+package pl.juraszek.sociabletests.domain.order.codec;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalog;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary format for orders. A frame holds any number of orders:
+ * <pre>
+ * [magic][version][varint strings]([varint length][utf-8])*[varint orders](order)*
+ * order:   [varint id length + 1, 0 for no id][utf-8 id][varint client ref][byte status][varint products](product)*
+ * product: [varint product ref][zigzag varint amount]
+ * </pre>
+ * Client and product ids are written once per frame into a string dictionary and referenced
+ * by their position in it.
+ */
+public final class OrderBinaryCodec {
+
+   private static final int MAGIC = 0x4F;
+   private static final int VERSION = 1;
+   private static final Order.Status[] STATUSES = Order.Status.values();
+   private static final int MIN_STRING_SIZE = 1;
+   private static final int MIN_ORDER_SIZE = 4;
+   private static final int MIN_PRODUCT_SIZE = 2;
+
+   private OrderBinaryCodec() {
+   }
+
+   public static byte[] encode(Order order) {
+      return encodeAll(List.of(order));
+   }
+
+   public static byte[] encodeAll(List<Order> orders) {
+      Map<String, Integer> dictionary = new HashMap<>();
+      List<String> strings = new ArrayList<>();
+      ByteArrayOutputStream body = new ByteArrayOutputStream(32 + orders.size() * 64);
+      writeVarInt(body, orders.size());
+      for (Order order : orders) {
+         writeNullableString(body, order.getId());
+         writeVarInt(body, reference(order.getClientId(), dictionary, strings));
+         body.write(order.getStatus().ordinal());
+         writeVarInt(body, order.getProducts().size());
+         for (Product product : order.getProducts()) {
+            writeVarInt(body, reference(product.productId(), dictionary, strings));
+            writeVarInt(body, zigZag(product.amount()));
+         }
+      }
+
+      ByteArrayOutputStream frame = new ByteArrayOutputStream(body.size() + strings.size() * 16 + 8);
+      frame.write(MAGIC);
+      frame.write(VERSION);
+      writeVarInt(frame, strings.size());
+      for (String string : strings) {
+         writeString(frame, string);
+      }
+      body.writeTo(frame);
+      return frame.toByteArray();
+   }
+
+   public static Order decode(byte[] frame) {
+      return single(decodeAll(frame, null));
+   }
+
+   /**
+    * Decodes a single order with product ids shared with the catalog, see
+    * {@link Order#restore(String, List, String, Order.Status, ProductCatalog)}.
+    */
+   public static Order decode(byte[] frame, @NonNull ProductCatalog catalog) {
+      return single(decodeAll(frame, catalog));
+   }
+
+   private static Order single(List<Order> orders) {
+      if (orders.size() != 1) {
+         throw new IllegalArgumentException(String.format("Expected a single order but frame contains %s", orders.size()));
+      }
+      return orders.get(0);
+   }
+
+   /**
+    * Every count, length and reference is checked against the frame before it is used, so a
+    * malformed or hostile frame fails with {@link IllegalArgumentException} and never makes the
+    * decoder allocate more than the frame can describe.
+    */
+   public static List<Order> decodeAll(byte[] frame) {
+      return decodeAll(frame, null);
+   }
+
+   private static List<Order> decodeAll(byte[] frame, @Nullable ProductCatalog catalog) {
+      Input input = new Input(frame);
+      if (input.readByte() != MAGIC || input.readByte() != VERSION) {
+         throw new IllegalArgumentException("Not an order frame or unsupported version");
+      }
+      String[] strings = new String[input.readCount(MIN_STRING_SIZE)];
+      for (int i = 0; i < strings.length; i++) {
+         strings[i] = input.readString(input.readCount(1));
+      }
+      int count = input.readCount(MIN_ORDER_SIZE);
+      List<Order> orders = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+         int idLength = input.readCount(1);
+         String id = idLength == 0 ? null : input.readString(idLength - 1);
+         String clientId = strings[input.readReference(strings.length)];
+         Order.Status status = STATUSES[input.readReference(STATUSES.length)];
+         int size = input.readCount(MIN_PRODUCT_SIZE);
+         List<Product> products = new ArrayList<>(size);
+         for (int j = 0; j < size; j++) {
+            products.add(new Product(strings[input.readReference(strings.length)], unZigZag(input.readVarInt())));
+         }
+         orders.add(catalog == null
+               ? Order.restore(id, products, clientId, status)
+               : Order.restore(id, products, clientId, status, catalog));
+      }
+      return orders;
+   }
+
+   private static int reference(String value, Map<String, Integer> dictionary, List<String> strings) {
+      return dictionary.computeIfAbsent(value, string -> {
+         strings.add(string);
+         return strings.size() - 1;
+      });
+   }
+
+   private static void writeNullableString(ByteArrayOutputStream output, String value) {
+      if (value == null) {
+         writeVarInt(output, 0);
+      } else {
+         byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+         writeVarInt(output, bytes.length + 1);
+         output.writeBytes(bytes);
+      }
+   }
+
+   private static void writeString(ByteArrayOutputStream output, String value) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeVarInt(output, bytes.length);
+      output.writeBytes(bytes);
+   }
+
+   private static void writeVarInt(ByteArrayOutputStream output, int value) {
+      while ((value & ~0x7F) != 0) {
+         output.write((value & 0x7F) | 0x80);
+         value >>>= 7;
+      }
+      output.write(value);
+   }
+
+   private static int zigZag(int value) {
+      return (value << 1) ^ (value >> 31);
+   }
+
+   private static int unZigZag(int value) {
+      return (value >>> 1) ^ -(value & 1);
+   }
+
+   private static final class Input {
+      private final byte[] bytes;
+      private int position;
+
+      private Input(byte[] bytes) {
+         this.bytes = bytes;
+      }
+
+      private int readByte() {
+         if (position >= bytes.length) {
+            throw new IllegalArgumentException("Unexpected end of order frame");
+         }
+         return bytes[position++] & 0xFF;
+      }
+
+      private int readVarInt() {
+         int value = 0;
+         for (int shift = 0; shift < 35; shift += 7) {
+            int next = readByte();
+            value |= (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+               return value;
+            }
+         }
+         throw new IllegalArgumentException("Malformed varint in order frame");
+      }
+
+      /**
+       * Reads a count of items taking at least {@code minItemSize} bytes each, or a length in bytes
+       * when it is 1, and rejects counts the rest of the frame cannot hold.
+       */
+      private int readCount(int minItemSize) {
+         int count = readVarInt();
+         if (count < 0 || count > (bytes.length - position) / minItemSize) {
+            throw new IllegalArgumentException(String.format("Invalid count %s in order frame", count));
+         }
+         return count;
+      }
+
+      private int readReference(int size) {
+         int reference = readVarInt();
+         if (reference < 0 || reference >= size) {
+            throw new IllegalArgumentException(String.format("Invalid reference %s in order frame", reference));
+         }
+         return reference;
+      }
+
+      private String readString(int length) {
+         if (length < 0 || length > bytes.length - position) {
+            throw new IllegalArgumentException("Unexpected end of order frame");
+         }
+         String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+         position += length;
+         return value;
+      }
+   }
+}
@@ -0,0 +1,12 @@
+package pl.juraszek.sociabletests.domain.order.event;
+
+import java.time.Instant;
+
+public sealed interface OrderEvent permits OrderPlaced, OrderRejected {
+
+   String orderId();
+
+   String clientId();
+
+   Instant occurredAt();
+}
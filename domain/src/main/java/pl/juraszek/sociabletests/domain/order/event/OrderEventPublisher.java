@@ -0,0 +1,14 @@
+package pl.juraszek.sociabletests.domain.order.event;
+
+import org.springframework.lang.NonNull;
+
+import java.util.List;
+
+public interface OrderEventPublisher {
+
+   /**
+    * Delivers events in the given order. Throwing means none of them is considered delivered,
+    * so the same events can be published again.
+    */
+   void publish(@NonNull List<OrderEvent> events);
+}
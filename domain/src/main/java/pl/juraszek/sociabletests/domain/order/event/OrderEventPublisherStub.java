@@ -0,0 +1,25 @@
+package pl.juraszek.sociabletests.domain.order.event;
+
+import org.springframework.lang.NonNull;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class OrderEventPublisherStub implements OrderEventPublisher {
+   private static final int CAPACITY = 10_000;
+
+   private final Queue<OrderEvent> published = new ConcurrentLinkedQueue<>();
+
+   @Override
+   public void publish(@NonNull List<OrderEvent> events) {
+      published.addAll(events);
+      while (published.size() > CAPACITY) {
+         published.poll();
+      }
+   }
+
+   public List<OrderEvent> published() {
+      return List.copyOf(published);
+   }
+}
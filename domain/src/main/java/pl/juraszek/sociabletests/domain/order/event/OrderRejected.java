@@ -0,0 +1,6 @@
+package pl.juraszek.sociabletests.domain.order.event;
+
+import java.time.Instant;
+
+public record OrderRejected(String orderId, String clientId, Instant occurredAt) implements OrderEvent {
+}
@@ -2,9 +2,17 @@ package pl.juraszek.sociabletests.domain.order.product;
 
 import org.springframework.lang.NonNull;
 
+import java.io.IOException;
+
 public record Product(@NonNull String productId, int amount) {
 
    public String render() {
-      return String.format("ProductId: %s, amount: %s", productId, amount);
+      StringBuilder line = new StringBuilder(32 + productId.length());
+      line.append("ProductId: ").append(productId).append(", amount: ").append(amount);
+      return line.toString();
+   }
+
+   public void render(Appendable output) throws IOException {
+      output.append("ProductId: ").append(productId).append(", amount: ").append(Integer.toString(amount));
    }
 }
@@ -0,0 +1,29 @@
+package pl.juraszek.sociabletests.domain.order.product;
+
+import org.springframework.lang.NonNull;
+
+import java.util.Optional;
+
+public interface ProductCatalog {
+
+   boolean isPremium(@NonNull String productId);
+
+   boolean isAgeRestricted(@NonNull String productId);
+
+   @NonNull Optional<String> region(@NonNull String productId);
+
+   /**
+    * Changes whenever the catalog content changes, lets cached verdicts based on it expire.
+    */
+   default long version() {
+      return 0;
+   }
+
+   /**
+    * Returns the catalog's own instance of a known product id, so orders of the same product can
+    * share it. Unknown ids are returned as they are.
+    */
+   default @NonNull String canonicalId(@NonNull String productId) {
+      return productId;
+   }
+}
@@ -0,0 +1,112 @@
+package pl.juraszek.sociabletests.domain.order.product;
+
+import org.springframework.lang.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable catalog snapshot. Every product id gets an ordinal, boolean attributes are kept in
+ * bitsets indexed by that ordinal and regions are dictionary encoded into a byte per product.
+ */
+public final class ProductCatalogIndex implements ProductCatalog {
+
+   private static final int MAX_REGIONS = 255;
+
+   private final Map<String, Integer> ordinals;
+   private final String[] productIds;
+   private final BitSet premium;
+   private final BitSet ageRestricted;
+   private final byte[] productRegions;
+   private final String[] regions;
+
+   private ProductCatalogIndex(Builder builder) {
+      this.ordinals = Map.copyOf(builder.ordinals);
+      this.productIds = new String[builder.ordinals.size()];
+      builder.ordinals.forEach((productId, ordinal) -> productIds[ordinal] = productId);
+      this.premium = (BitSet) builder.premium.clone();
+      this.ageRestricted = (BitSet) builder.ageRestricted.clone();
+      this.productRegions = Arrays.copyOf(builder.productRegions, builder.ordinals.size());
+      this.regions = builder.regions.toArray(String[]::new);
+   }
+
+   public static Builder builder() {
+      return new Builder();
+   }
+
+   public int size() {
+      return ordinals.size();
+   }
+
+   @Override
+   public boolean isPremium(@NonNull String productId) {
+      Integer ordinal = ordinals.get(productId);
+      return ordinal != null && premium.get(ordinal);
+   }
+
+   @Override
+   public boolean isAgeRestricted(@NonNull String productId) {
+      Integer ordinal = ordinals.get(productId);
+      return ordinal != null && ageRestricted.get(ordinal);
+   }
+
+   @Override
+   public @NonNull Optional<String> region(@NonNull String productId) {
+      Integer ordinal = ordinals.get(productId);
+      if (ordinal == null || productRegions[ordinal] == 0) {
+         return Optional.empty();
+      }
+      return Optional.of(regions[(productRegions[ordinal] & 0xFF) - 1]);
+   }
+
+   @Override
+   public @NonNull String canonicalId(@NonNull String productId) {
+      Integer ordinal = ordinals.get(productId);
+      return ordinal == null ? productId : productIds[ordinal];
+   }
+
+   public static final class Builder {
+      private final Map<String, Integer> ordinals = new HashMap<>();
+      private final BitSet premium = new BitSet();
+      private final BitSet ageRestricted = new BitSet();
+      private final List<String> regions = new ArrayList<>();
+      private final Map<String, Integer> regionCodes = new HashMap<>();
+      private byte[] productRegions = new byte[64];
+
+      private Builder() {
+      }
+
+      public Builder add(@NonNull String productId, boolean premium, String region, boolean ageRestricted) {
+         int ordinal = ordinals.computeIfAbsent(productId, id -> ordinals.size());
+         this.premium.set(ordinal, premium);
+         this.ageRestricted.set(ordinal, ageRestricted);
+         if (ordinal >= productRegions.length) {
+            productRegions = Arrays.copyOf(productRegions, productRegions.length * 2);
+         }
+         productRegions[ordinal] = (byte) regionCode(region);
+         return this;
+      }
+
+      public ProductCatalogIndex build() {
+         return new ProductCatalogIndex(this);
+      }
+
+      private int regionCode(String region) {
+         if (region == null || region.isBlank()) {
+            return 0;
+         }
+         return regionCodes.computeIfAbsent(region, name -> {
+            if (regions.size() == MAX_REGIONS) {
+               throw new IllegalArgumentException(String.format("Catalog supports at most %s regions", MAX_REGIONS));
+            }
+            regions.add(name);
+            return regions.size();
+         });
+      }
+   }
+}
@@ -0,0 +1,25 @@
+package pl.juraszek.sociabletests.domain.order.product;
+
+import org.springframework.lang.NonNull;
+
+import java.util.Optional;
+
+public class ProductCatalogStub implements ProductCatalog {
+   @Override
+   public boolean isPremium(@NonNull String productId) {
+      return switch (productId) {
+         case "premium_1", "premium_2" -> true;
+         default -> false;
+      };
+   }
+
+   @Override
+   public boolean isAgeRestricted(@NonNull String productId) {
+      return false;
+   }
+
+   @Override
+   public @NonNull Optional<String> region(@NonNull String productId) {
+      return Optional.empty();
+   }
+}
@@ -0,0 +1,51 @@
+package pl.juraszek.sociabletests.domain.order.product;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read-only product lines of an order that can no longer change. Lines are kept in parallel
+ * arrays of product ids and primitive amounts, products are created on access.
+ */
+public final class ProductLines extends AbstractList<Product> implements RandomAccess {
+
+   private final String[] productIds;
+   private final int[] amounts;
+
+   private ProductLines(String[] productIds, int[] amounts) {
+      this.productIds = productIds;
+      this.amounts = amounts;
+   }
+
+   public static List<Product> copyOf(List<Product> products) {
+      return products instanceof ProductLines lines ? lines : copyOf(products, UnaryOperator.identity());
+   }
+
+   /**
+    * Replaces every product id with the one returned by {@code canonicalIds}, e.g. with
+    * {@link ProductCatalog#canonicalId(String)}, so the many orders of the same catalog product
+    * point to a single string.
+    */
+   public static List<Product> copyOf(List<Product> products, UnaryOperator<String> canonicalIds) {
+      String[] productIds = new String[products.size()];
+      int[] amounts = new int[products.size()];
+      for (int line = 0; line < productIds.length; line++) {
+         Product product = products.get(line);
+         productIds[line] = canonicalIds.apply(product.productId());
+         amounts[line] = product.amount();
+      }
+      return new ProductLines(productIds, amounts);
+   }
+
+   @Override
+   public Product get(int index) {
+      return new Product(productIds[index], amounts[index]);
+   }
+
+   @Override
+   public int size() {
+      return amounts.length;
+   }
+}
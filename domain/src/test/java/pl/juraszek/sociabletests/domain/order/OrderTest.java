@@ -1,7 +1,29 @@
 package pl.juraszek.sociabletests.domain.order;
 
+import io.vavr.control.Either;
 import org.junit.jupiter.api.Test;
+import pl.juraszek.sociabletests.domain.client.Client;
+import pl.juraszek.sociabletests.domain.order.access.OrderAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.access.PremiumProductPolicy;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessException;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessExceptions;
+import pl.juraszek.sociabletests.domain.order.access.ProductAccessPolicy;
+import pl.juraszek.sociabletests.domain.order.event.OrderEvent;
+import pl.juraszek.sociabletests.domain.order.event.OrderPlaced;
+import pl.juraszek.sociabletests.domain.order.event.OrderRejected;
 import pl.juraszek.sociabletests.domain.order.product.Product;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalog;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalogIndex;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalogStub;
+import pl.juraszek.sociabletests.domain.order.product.ProductLines;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -22,4 +44,147 @@ class OrderTest {
      assertThat(report)
        .isEqualTo(expectedReport);
    }
-}
\ No newline at end of file
+
+   @Test
+   void shouldStreamSameReportAsRenderedString() throws IOException {
+      // given
+      Order order = Order.init("client_1");
+      List<Product> products = List.of(new Product("product_1", 100), new Product("product_2", -3), new Product("product_3", 0));
+      order.add(products);
+      String expectedReport = String.format("Order report:%n %s", products.stream()
+            .map(product -> String.format("ProductId: %s, amount: %s", product.productId(), product.amount()))
+            .collect(Collectors.joining("\n")));
+      StringWriter writer = new StringWriter();
+      ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+      // when
+      order.renderReport(writer);
+      order.renderReport(stream);
+
+      // then
+      assertThat(order.renderReport()).isEqualTo(expectedReport);
+      assertThat(writer.toString()).isEqualTo(expectedReport);
+      assertThat(stream.toString(StandardCharsets.UTF_8)).isEqualTo(expectedReport);
+   }
+
+   @Test
+   void shouldMergeProductsWithSameId() {
+      // given
+      Order order = Order.init("client_1");
+
+      // when
+      order.add(new Product("product_1", 2));
+      order.add(List.of(new Product("product_2", 1), new Product("product_1", 3)));
+
+      // then
+      assertThat(order.getProducts())
+            .containsExactly(new Product("product_1", 5), new Product("product_2", 1));
+   }
+
+   @Test
+   void shouldCheckOnlyNewProductsWhenAccessIsTracked() {
+      // given
+      List<String> checkedProducts = new ArrayList<>();
+      ProductAccessPolicy premiumProductPolicy = new PremiumProductPolicy(new ProductCatalogStub());
+      ProductAccessPolicy recordingPolicy = (product, client) -> {
+         checkedProducts.add(product.productId());
+         return premiumProductPolicy.check(product, client);
+      };
+      OrderAccessPolicy accessPolicy = new OrderAccessPolicy(List.of(recordingPolicy));
+      Client client = new Client("john_doe", false);
+      Order order = Order.init(client.name());
+      order.add(new Product("basic", 1));
+      order.trackAccess(client, accessPolicy);
+
+      // when
+      order.add(new Product("premium_1", 1));
+      order.add(new Product("basic_2", 1));
+      Either<ProductAccessExceptions, Order> result = order.place(client, accessPolicy);
+
+      // then
+      assertThat(checkedProducts).containsExactly("basic", "premium_1", "basic_2");
+      assertThat(result.getLeft().getExceptions())
+            .extracting(ProductAccessException::getProductId)
+            .containsExactly("premium_1");
+   }
+
+   @Test
+   void shouldPlaceTrackedOrderWithoutRecheckingBasket() {
+      // given
+      List<String> checkedProducts = new ArrayList<>();
+      OrderAccessPolicy accessPolicy = new OrderAccessPolicy(List.of((product, client) -> {
+         checkedProducts.add(product.productId());
+         return ProductAccessPolicy.ACCESS_GRANTED;
+      }));
+      Client client = new Client("jane_doe", true);
+      Order order = Order.init(client.name());
+      order.trackAccess(client, accessPolicy);
+      order.add(new Product("premium_1", 1));
+
+      // when
+      Either<ProductAccessExceptions, Order> result = order.place(client, accessPolicy);
+
+      // then
+      assertThat(result.get().getStatus()).isEqualTo(Order.Status.PLACED);
+      assertThat(checkedProducts).containsExactly("premium_1");
+   }
+
+   @Test
+   void shouldRecordEventOncePerStatusChange() {
+      // given
+      OrderAccessPolicy accessPolicy = new OrderAccessPolicy(List.of((product, client) -> ProductAccessPolicy.ACCESS_GRANTED));
+      Client client = new Client("jane_doe", true);
+      Order placed = Order.init(client.name());
+      Order rejected = Order.init(client.name());
+
+      // when
+      placed.place(client, accessPolicy);
+      placed.place(client, accessPolicy);
+      rejected.reject();
+      rejected.reject();
+      List<OrderEvent> placedEvents = placed.pullEvents();
+
+      // then
+      assertThat(placedEvents).singleElement().isInstanceOf(OrderPlaced.class)
+            .extracting(OrderEvent::orderId).isEqualTo(placed.getId());
+      assertThat(placed.pullEvents()).isEmpty();
+      assertThat(rejected.pullEvents()).singleElement().isInstanceOf(OrderRejected.class);
+   }
+
+   @Test
+   void shouldKeepProductsOfPlacedOrderReadOnly() {
+      // given
+      OrderAccessPolicy accessPolicy = new OrderAccessPolicy(List.of((product, client) -> ProductAccessPolicy.ACCESS_GRANTED));
+      Order order = Order.init("jane_doe");
+      order.add(List.of(new Product(new String("product_1"), 2), new Product("product_2", 5)));
+      Order other = Order.init("john_doe");
+      other.add(new Product(new String("product_1"), 1));
+
+      // when
+      order.place(new Client("jane_doe", false), accessPolicy);
+      other.reject();
+      order.add(new Product("product_3", 1));
+
+      // then
+      assertThat(order.getProducts()).isInstanceOf(ProductLines.class)
+            .containsExactly(new Product("product_1", 2), new Product("product_2", 5));
+      assertThat(order).isEqualTo(Order.restore(order.getId(), List.of(new Product("product_1", 2), new Product("product_2", 5)),
+            "jane_doe", Order.Status.PLACED));
+   }
+
+   @Test
+   void shouldShareProductIdsWithCatalogWhenRestored() {
+      // given
+      ProductCatalog catalog = ProductCatalogIndex.builder().add("product_1", false, null, false).build();
+
+      // when
+      Order order = Order.restore("order_1", List.of(new Product(new String("product_1"), 2), new Product("product_2", 5)),
+            "jane_doe", Order.Status.PLACED, catalog);
+      Order other = Order.restore("order_2", List.of(new Product(new String("product_1"), 1)), "john_doe",
+            Order.Status.REJECTED, catalog);
+
+      // then
+      assertThat(order.getProducts()).containsExactly(new Product("product_1", 2), new Product("product_2", 5));
+      assertThat(order.getProducts().get(0).productId()).isSameAs(other.getProducts().get(0).productId());
+   }
+}
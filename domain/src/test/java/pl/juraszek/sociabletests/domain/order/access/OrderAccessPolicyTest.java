@@ -0,0 +1,177 @@
+package pl.juraszek.sociabletests.domain.order.access;
+
+import io.vavr.control.Either;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import pl.juraszek.sociabletests.domain.client.Client;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+import pl.juraszek.sociabletests.domain.order.product.ProductCatalogStub;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderAccessPolicyTest {
+
+   private static final ProductAccessPolicy RESTRICTED_PRODUCT_POLICY = (product, client) -> product.productId().startsWith("restricted")
+         ? Either.left(new ProductAccessException("Restricted product", product.productId()))
+         : ProductAccessPolicy.ACCESS_GRANTED;
+
+   private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+   private final Client client = new Client("john_doe", false);
+
+   @AfterAll
+   static void shutdownPool() {
+      POOL.shutdown();
+   }
+
+   @Test
+   void shouldCollectAllViolations() {
+      // given
+      OrderAccessPolicy accessPolicy = new OrderAccessPolicy(List.of(new PremiumProductPolicy(new ProductCatalogStub())));
+      Order order = premiumOrder();
+
+      // when
+      Either<ProductAccessExceptions, Boolean> result = accessPolicy.check(order, client);
+
+      // then
+      assertThat(result.getLeft().getExceptions())
+            .extracting(ProductAccessException::getProductId)
+            .containsExactly("premium_1", "premium_2");
+   }
+
+   @Test
+   void shouldStopAtFirstViolationInFailFastMode() {
+      // given
+      OrderAccessPolicy accessPolicy = new OrderAccessPolicy(List.of(new PremiumProductPolicy(new ProductCatalogStub())), true);
+      Order order = premiumOrder();
+
+      // when
+      Either<ProductAccessExceptions, Boolean> result = accessPolicy.check(order, client);
+
+      // then
+      assertThat(result.getLeft().getExceptions())
+            .extracting(ProductAccessException::getProductId)
+            .containsExactly("premium_1");
+   }
+
+   @Test
+   void shouldGrantAccessWhenNoPolicyIsViolated() {
+      // given
+      OrderAccessPolicy accessPolicy = new OrderAccessPolicy(List.of(new PremiumProductPolicy(new ProductCatalogStub())), true);
+      Order order = Order.init(client.name());
+      order.add(new Product("basic", 1));
+
+      // when
+      Either<ProductAccessExceptions, Boolean> result = accessPolicy.check(order, client);
+
+      // then
+      assertThat(result.get()).isTrue();
+   }
+
+   @Test
+   void shouldMergeParallelViolationsInProductOrder() {
+      // given
+      List<ProductAccessPolicy> policies = List.of(RESTRICTED_PRODUCT_POLICY);
+      OrderAccessPolicy sequential = new OrderAccessPolicy(policies);
+      OrderAccessPolicy parallel = new OrderAccessPolicy(policies, false, POOL, 100);
+      Order order = largeOrder();
+
+      // when
+      Either<ProductAccessExceptions, Boolean> result = parallel.check(order, client);
+
+      // then
+      assertThat(result.getLeft().getExceptions())
+            .hasSize(50)
+            .extracting(ProductAccessException::getProductId)
+            .containsExactlyElementsOf(sequential.check(order, client).getLeft().getExceptions().stream()
+                  .map(ProductAccessException::getProductId)
+                  .toList());
+   }
+
+   @Test
+   void shouldReportFirstViolationInProductOrderWhenParallelAndFailFast() {
+      // given
+      OrderAccessPolicy parallel = new OrderAccessPolicy(List.of(RESTRICTED_PRODUCT_POLICY), true, POOL, 100);
+      Order order = largeOrder();
+
+      // when
+      Either<ProductAccessExceptions, Boolean> result = parallel.check(order, client);
+
+      // then
+      assertThat(result.getLeft().getExceptions())
+            .extracting(ProductAccessException::getProductId)
+            .containsExactly("restricted_99");
+   }
+
+   @Test
+   void shouldReuseCachedVerdictsForEqualKeys() {
+      // given
+      CountingPolicy policy = new CountingPolicy();
+      OrderAccessPolicy accessPolicy = new OrderAccessPolicy(List.of(policy), false, null, 0, new VerdictCache(100, Duration.ofMinutes(1)));
+      Order order = premiumOrder();
+
+      // when
+      accessPolicy.check(order, client);
+      Either<ProductAccessExceptions, Boolean> result = accessPolicy.check(order, new Client("another_doe", false));
+
+      // then
+      assertThat(policy.checks).hasValue(3);
+      assertThat(result.getLeft().getExceptions())
+            .extracting(ProductAccessException::getProductId)
+            .containsExactly("premium_1", "premium_2");
+   }
+
+   @Test
+   void shouldDropCachedVerdictsWhenReconfigured() {
+      // given
+      CountingPolicy policy = new CountingPolicy();
+      OrderAccessPolicy accessPolicy = new OrderAccessPolicy(List.of(policy), false, null, 0, new VerdictCache(100, Duration.ofMinutes(1)));
+      Order order = premiumOrder();
+      accessPolicy.check(order, client);
+
+      // when
+      accessPolicy.reconfigure(List.of(policy));
+      accessPolicy.check(order, client);
+
+      // then
+      assertThat(policy.checks).hasValue(6);
+      assertThat(accessPolicy.version()).isEqualTo(1);
+   }
+
+   private Order largeOrder() {
+      Order order = Order.init(client.name());
+      order.add(IntStream.range(0, 5000)
+            .mapToObj(i -> new Product((i % 100 == 99 ? "restricted_" : "product_") + i, 1))
+            .toList());
+      return order;
+   }
+
+   private Order premiumOrder() {
+      Order order = Order.init(client.name());
+      order.add(List.of(new Product("premium_1", 1), new Product("basic", 1), new Product("premium_2", 1)));
+      return order;
+   }
+
+   private static class CountingPolicy implements CacheableProductAccessPolicy {
+      private final PremiumProductPolicy delegate = new PremiumProductPolicy(new ProductCatalogStub());
+      private final AtomicInteger checks = new AtomicInteger();
+
+      @Override
+      public Either<ProductAccessException, Boolean> check(Product product, Client client) {
+         checks.incrementAndGet();
+         return delegate.check(product, client);
+      }
+
+      @Override
+      public Object cacheKey(Product product, Client client) {
+         return delegate.cacheKey(product, client);
+      }
+   }
+}
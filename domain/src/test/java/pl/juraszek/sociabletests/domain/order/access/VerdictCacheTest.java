@@ -0,0 +1,38 @@
+package pl.juraszek.sociabletests.domain.order.access;
+
+import io.vavr.control.Either;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerdictCacheTest {
+
+   private final VerdictCache verdictCache = new VerdictCache(3, Duration.ofMinutes(1));
+   private final AtomicInteger checks = new AtomicInteger();
+
+   @Test
+   void shouldEvictOldestVerdictsAboveMaximumSize() {
+      // given
+      IntStream.range(0, 5).forEach(this::check);
+
+      // when
+      checks.set(0);
+      IntStream.range(2, 5).forEach(this::check);
+      check(0);
+
+      // then
+      assertThat(verdictCache.size()).isEqualTo(3);
+      assertThat(checks).hasValue(1);
+   }
+
+   private void check(int product) {
+      verdictCache.get(0, 0, "product_" + product, () -> {
+         checks.incrementAndGet();
+         return Either.right(true);
+      });
+   }
+}
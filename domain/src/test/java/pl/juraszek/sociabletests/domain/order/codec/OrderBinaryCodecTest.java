@@ -0,0 +1,100 @@
+package pl.juraszek.sociabletests.domain.order.codec;
+
+import org.junit.jupiter.api.Test;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderBinaryCodecTest {
+
+   @Test
+   void shouldRoundTripSingleOrder() {
+      // given
+      Order order = Order.init("john_doe");
+      order.add(List.of(new Product("premium_1", 300), new Product("basic", -2), new Product("zero", 0)));
+      order.reject();
+
+      // when
+      Order decoded = OrderBinaryCodec.decode(OrderBinaryCodec.encode(order));
+
+      // then
+      assertThat(decoded).isEqualTo(order);
+   }
+
+   @Test
+   void shouldRoundTripOrdersSharingDictionary() {
+      // given
+      List<Order> orders = IntStream.range(0, 50).mapToObj(i -> {
+         Order order = Order.init(i % 2 == 0 ? "john_doe" : "jane_doe");
+         order.add(List.of(new Product("product_" + i % 5, i), new Product("premium_1", Integer.MAX_VALUE - i)));
+         return order;
+      }).toList();
+
+      // when
+      byte[] frame = OrderBinaryCodec.encodeAll(orders);
+      List<Order> decoded = OrderBinaryCodec.decodeAll(frame);
+
+      // then
+      assertThat(decoded).containsExactlyElementsOf(orders);
+      assertThat(frame.length).isLessThan(orders.size() * 64);
+   }
+
+   @Test
+   void shouldRoundTripOrderWithoutId() {
+      // given
+      Order order = Order.restore(null, List.of(new Product("basic", 1)), "john_doe", Order.Status.NEW);
+
+      // when
+      Order decoded = OrderBinaryCodec.decode(OrderBinaryCodec.encode(order));
+
+      // then
+      assertThat(decoded.getId()).isNull();
+      assertThat(decoded.getProducts()).containsExactly(new Product("basic", 1));
+   }
+
+   @Test
+   void shouldRejectTruncatedFrame() {
+      // given
+      Order order = Order.init("john_doe");
+      order.add(new Product("basic", 1));
+      byte[] frame = OrderBinaryCodec.encode(order);
+      byte[] truncated = Arrays.copyOf(frame, frame.length - 3);
+
+      // then
+      assertThatThrownBy(() -> OrderBinaryCodec.decode(truncated)).isInstanceOf(IllegalArgumentException.class);
+   }
+
+   @Test
+   void shouldRejectFramesWithInvalidCountsAndReferences() {
+      // given
+      List<byte[]> frames = List.of(
+            frame(0xFF, 0xFF, 0xFF, 0xFF, 0x07),
+            frame(0xFF, 0xFF, 0xFF, 0xFF, 0x0F),
+            frame(1, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F),
+            frame(1, 1, 'a', 0x7F, 0, 0, 0, 0),
+            frame(1, 1, 'a', 1, 0, 5, 0, 0),
+            frame(1, 1, 'a', 1, 0, 0, 9, 0),
+            frame(1, 1, 'a', 1, 0, 0, 0, 0x7F),
+            frame(1, 1, 'a', 1, 0, 0, 0, 1, 3, 0));
+
+      // then
+      assertThat(frames).allSatisfy(frame ->
+            assertThatThrownBy(() -> OrderBinaryCodec.decodeAll(frame)).isInstanceOf(IllegalArgumentException.class));
+   }
+
+   private static byte[] frame(int... body) {
+      byte[] frame = new byte[body.length + 2];
+      frame[0] = 0x4F;
+      frame[1] = 1;
+      for (int i = 0; i < body.length; i++) {
+         frame[i + 2] = (byte) body[i];
+      }
+      return frame;
+   }
+}
@@ -0,0 +1,51 @@
+package pl.juraszek.sociabletests.domain.order.product;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCatalogIndexTest {
+
+   @Test
+   void shouldIndexProductAttributes() {
+      // given
+      ProductCatalogIndex catalog = ProductCatalogIndex.builder()
+            .add("premium_1", true, "EU", false)
+            .add("wine", false, "EU", true)
+            .add("basic", false, "", false)
+            .build();
+
+      // then
+      assertThat(catalog.size()).isEqualTo(3);
+      assertThat(catalog.isPremium("premium_1")).isTrue();
+      assertThat(catalog.isPremium("wine")).isFalse();
+      assertThat(catalog.isAgeRestricted("wine")).isTrue();
+      assertThat(catalog.region("wine")).contains("EU");
+      assertThat(catalog.region("basic")).isEmpty();
+   }
+
+   @Test
+   void shouldTreatUnknownProductAsPlainProduct() {
+      // given
+      ProductCatalogIndex catalog = ProductCatalogIndex.builder().add("premium_1", true, "EU", false).build();
+
+      // then
+      assertThat(catalog.isPremium("unknown")).isFalse();
+      assertThat(catalog.isAgeRestricted("unknown")).isFalse();
+      assertThat(catalog.region("unknown")).isEmpty();
+   }
+
+   @Test
+   void shouldOverrideAttributesOfRepeatedProduct() {
+      // given
+      ProductCatalogIndex catalog = ProductCatalogIndex.builder()
+            .add("premium_1", false, "EU", false)
+            .add("premium_1", true, "US", false)
+            .build();
+
+      // then
+      assertThat(catalog.size()).isEqualTo(1);
+      assertThat(catalog.isPremium("premium_1")).isTrue();
+      assertThat(catalog.region("premium_1")).contains("US");
+   }
+}
@@ -0,0 +1,28 @@
+package pl.juraszek.sociabletests.adapter.driver.aot;
+
+import io.vavr.control.Either;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import pl.juraszek.sociabletests.adapter.driver.dto.OrderDto;
+import pl.juraszek.sociabletests.adapter.driver.dto.OrderResultDto;
+import pl.juraszek.sociabletests.adapter.driver.dto.ProductDto;
+
+/**
+ * Reflection hints for a native image. AOT finds DTOs used directly in controller signatures,
+ * but not the ones written through {@code ObjectMapper} in streamed responses.
+ */
+public class OrderRuntimeHints implements RuntimeHintsRegistrar {
+
+   private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+
+   @Override
+   public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+      bindingHints.registerReflectionHints(hints.reflection(), OrderDto.class, ProductDto.class, OrderResultDto.class);
+      hints.reflection()
+            .registerType(Either.class, MemberCategory.INVOKE_PUBLIC_METHODS)
+            .registerType(Either.Left.class, MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)
+            .registerType(Either.Right.class, MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+   }
+}
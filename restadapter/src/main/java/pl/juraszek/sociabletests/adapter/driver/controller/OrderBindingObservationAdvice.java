@@ -0,0 +1,80 @@
+package pl.juraszek.sociabletests.adapter.driver.controller;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+import pl.juraszek.sociabletests.application.tracing.OrderStage;
+
+import java.lang.reflect.Type;
+
+/**
+ * Observes reading of order request bodies as {@link OrderStage#BIND}. The observation is
+ * started before the converter reads the body and stopped once the body is bound. A body that
+ * fails to bind never reaches the advice again, its observation is stopped with an error when
+ * the request completes.
+ */
+@ConditionalOnProperty(prefix = "order-tracing", name = "enabled", havingValue = "true")
+@ControllerAdvice(assignableTypes = OrderController.class)
+public class OrderBindingObservationAdvice extends RequestBodyAdviceAdapter {
+
+   private static final String OBSERVATION_ATTRIBUTE = OrderBindingObservationAdvice.class.getName() + ".observation";
+
+   private final ObservationRegistry registry;
+
+   public OrderBindingObservationAdvice(ObjectProvider<ObservationRegistry> registry) {
+      this.registry = registry.getIfAvailable(() -> ObservationRegistry.NOOP);
+   }
+
+   @Override
+   public boolean supports(MethodParameter methodParameter, Type targetType,
+                           Class<? extends HttpMessageConverter<?>> converterType) {
+      return !registry.isNoop();
+   }
+
+   @Override
+   public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                          Class<? extends HttpMessageConverter<?>> converterType) {
+      Observation observation = OrderStage.BIND.observation(registry).start();
+      RequestAttributes attributes = RequestContextHolder.currentRequestAttributes();
+      attributes.setAttribute(OBSERVATION_ATTRIBUTE, observation, RequestAttributes.SCOPE_REQUEST);
+      // removing the attribute once the body is bound removes the callback as well
+      attributes.registerDestructionCallback(OBSERVATION_ATTRIBUTE,
+            () -> stop(attributes, new IllegalStateException("Order request body failed to bind")),
+            RequestAttributes.SCOPE_REQUEST);
+      return inputMessage;
+   }
+
+   @Override
+   public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                               Class<? extends HttpMessageConverter<?>> converterType) {
+      stop(RequestContextHolder.currentRequestAttributes(), null);
+      return body;
+   }
+
+   @Override
+   public Object handleEmptyBody(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                 Class<? extends HttpMessageConverter<?>> converterType) {
+      stop(RequestContextHolder.currentRequestAttributes(), null);
+      return body;
+   }
+
+   private void stop(RequestAttributes attributes, @Nullable Throwable failure) {
+      Object observation = attributes.getAttribute(OBSERVATION_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+      if (observation instanceof Observation started) {
+         attributes.removeAttribute(OBSERVATION_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+         if (failure != null) {
+            started.error(failure);
+         }
+         started.stop();
+      }
+   }
+}
@@ -1,29 +1,219 @@
 package pl.juraszek.sociabletests.adapter.driver.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import io.vavr.control.Either;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.juraszek.sociabletests.adapter.driver.aot.OrderRuntimeHints;
 import pl.juraszek.sociabletests.adapter.driver.dto.OrderDto;
+import pl.juraszek.sociabletests.adapter.driver.dto.OrderResultDto;
 import pl.juraszek.sociabletests.adapter.driver.dto.ProductDto;
+import pl.juraszek.sociabletests.application.admission.AdmissionControl;
+import pl.juraszek.sociabletests.application.admission.OrderThrottledException;
+import pl.juraszek.sociabletests.application.service.AsyncOrderService;
+import pl.juraszek.sociabletests.application.service.IdempotentOrderService;
+import pl.juraszek.sociabletests.application.service.OrderRequest;
 import pl.juraszek.sociabletests.application.service.OrderService;
+import pl.juraszek.sociabletests.domain.client.ClientAccessException;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.OrderQuery;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/orders")
+@ImportRuntimeHints(OrderRuntimeHints.class)
 @Slf4j
 @RequiredArgsConstructor
 public class OrderController {
 
+   private static final int STREAM_CHUNK_SIZE = 1000;
+   private static final int MAX_PAGE_SIZE = 1000;
+   private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
    private final OrderService orderService;
+   private final AsyncOrderService asyncOrderService;
+   private final IdempotentOrderService idempotentOrderService;
+   private final AdmissionControl admissionControl;
+   private final ObjectMapper objectMapper;
+   private final Validator validator;
 
    @PostMapping
-   public OrderDto order(@RequestBody @Valid OrderDto orderDto) {
-      log.info("Creating order {}", orderDto);
-      var order = orderService.placeOrder(ProductDto.convert(orderDto.products()), orderDto.clientId());
-      return OrderDto.of(order);
+   public OrderDto order(@RequestBody @Valid OrderDto orderDto,
+                         @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+      logOrder("Creating order", orderDto);
+      try (var permit = admissionControl.admit(orderDto.clientId())) {
+         return OrderDto.of(placeOrder(orderDto, idempotencyKey));
+      }
+   }
+
+   @PostMapping("/async")
+   public CompletableFuture<OrderDto> orderAsync(@RequestBody @Valid OrderDto orderDto) {
+      logOrder("Creating order asynchronously", orderDto);
+      AdmissionControl.Permit permit = admissionControl.admit(orderDto.clientId());
+      try {
+         return asyncOrderService.placeOrderAsync(ProductDto.convert(orderDto.products()), orderDto.clientId())
+               .whenComplete((order, failure) -> permit.close())
+               .thenApply(OrderDto::of);
+      } catch (RuntimeException e) {
+         permit.close();
+         throw e;
+      }
+   }
+
+   @GetMapping("/{id}")
+   public ResponseEntity<OrderDto> order(@PathVariable String id) {
+      return ResponseEntity.of(orderService.findOrder(id).map(OrderDto::of));
+   }
+
+   @GetMapping(path = "/{id}/report", produces = MediaType.TEXT_PLAIN_VALUE)
+   public ResponseEntity<StreamingResponseBody> orderReport(@PathVariable String id) {
+      return ResponseEntity.of(orderService.findOrder(id).map(order -> (StreamingResponseBody) order::renderReport));
+   }
+
+   @GetMapping
+   public ResponseEntity<StreamingResponseBody> orders(@RequestParam(required = false) String clientId,
+                                                       @RequestParam(required = false) Order.Status status,
+                                                       @RequestParam(required = false) String after,
+                                                       @RequestParam(defaultValue = "100") int limit) {
+      OrderQuery query = new OrderQuery(clientId, status, after, Math.min(Math.max(limit, 1), MAX_PAGE_SIZE));
+      return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(output -> writePage(query, objectMapper.createGenerator(output)));
+   }
+
+   @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+   public List<OrderResultDto> orders(@RequestBody List<OrderDto> orderDtos) {
+      log.info("Creating batch of {} orders", orderDtos.size());
+      try (var permit = admissionControl.admit()) {
+         return placeOrders(orderDtos);
+      }
+   }
+
+   @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+   public StreamingResponseBody streamOrders(InputStream body) {
+      AdmissionControl.Permit permit = admissionControl.admit();
+      return output -> {
+         try (permit;
+              MappingIterator<OrderDto> orderDtos = objectMapper.readerFor(OrderDto.class).readValues(body);
+              SequenceWriter results = objectMapper.writerFor(OrderResultDto.class).withRootValueSeparator("\n").writeValues(output)) {
+            List<OrderDto> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            while (orderDtos.hasNextValue()) {
+               chunk.add(orderDtos.nextValue());
+               if (chunk.size() == STREAM_CHUNK_SIZE || !orderDtos.hasNextValue()) {
+                  log.info("Creating streamed chunk of {} orders", chunk.size());
+                  results.writeAll(placeOrders(chunk));
+                  results.flush();
+                  chunk.clear();
+               }
+            }
+         }
+      };
+   }
+
+   /**
+    * Logs a one line summary, the whole order only at debug. Both are skipped without building
+    * the message when their level is off, which matters for baskets of thousands of products.
+    */
+   private void logOrder(String action, OrderDto orderDto) {
+      if (log.isDebugEnabled()) {
+         log.debug("{} {}", action, orderDto);
+      } else if (log.isInfoEnabled()) {
+         log.info("{} for client {} with {} products", action, orderDto.clientId(), orderDto.products().size());
+      }
+   }
+
+   private Order placeOrder(OrderDto orderDto, String idempotencyKey) {
+      var products = ProductDto.convert(orderDto.products());
+      if (idempotencyKey == null) {
+         return orderService.placeOrder(products, orderDto.clientId());
+      }
+      return idempotentOrderService.placeOrder(idempotencyKey, products, orderDto.clientId());
+   }
+
+   private void writePage(OrderQuery query, JsonGenerator json) throws IOException {
+      try (json; Stream<Order> orders = orderService.findOrders(query)) {
+         json.writeStartObject();
+         json.writeArrayFieldStart("orders");
+         String last = null;
+         int count = 0;
+         for (Iterator<Order> iterator = orders.iterator(); iterator.hasNext(); count++) {
+            Order order = iterator.next();
+            json.writeObject(OrderDto.of(order));
+            last = order.getId();
+         }
+         json.writeEndArray();
+         json.writeStringField("next", count == query.limit() ? last : null);
+         json.writeEndObject();
+      }
+   }
+
+   /**
+    * Every valid order is charged to its client's rate limit, orders over the limit are reported
+    * as errors of their entry like invalid ones.
+    */
+   private List<OrderResultDto> placeOrders(List<OrderDto> orderDtos) {
+      List<String> errors = orderDtos.stream().map(this::admit).toList();
+      List<OrderRequest> requests = new ArrayList<>(orderDtos.size());
+      for (int i = 0; i < orderDtos.size(); i++) {
+         if (errors.get(i) == null) {
+            requests.add(orderDtos.get(i).toRequest());
+         }
+      }
+
+      Iterator<Either<ClientAccessException, Order>> placed = orderService.placeOrders(requests).iterator();
+      return errors.stream()
+            .map(error -> error == null ? OrderResultDto.of(placed.next()) : OrderResultDto.error(error))
+            .toList();
+   }
+
+   private String admit(OrderDto orderDto) {
+      String violation = validate(orderDto);
+      if (violation != null) {
+         return violation;
+      }
+      try {
+         admissionControl.charge(orderDto.clientId());
+         return null;
+      } catch (OrderThrottledException e) {
+         return e.getMessage();
+      }
+   }
+
+   private String validate(OrderDto orderDto) {
+      Set<ConstraintViolation<OrderDto>> violations = validator.validate(orderDto);
+      if (violations.isEmpty()) {
+         return null;
+      }
+      return violations.stream()
+            .map(violation -> String.format("%s %s", violation.getPropertyPath(), violation.getMessage()))
+            .collect(Collectors.joining(", ", "Invalid order: ", ""));
    }
 
 }
@@ -0,0 +1,28 @@
+package pl.juraszek.sociabletests.adapter.driver.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import pl.juraszek.sociabletests.application.admission.OrderThrottledException;
+import pl.juraszek.sociabletests.application.service.IdempotencyKeyReusedException;
+
+@RestControllerAdvice
+public class OrderExceptionHandler {
+
+   @ExceptionHandler(OrderThrottledException.class)
+   public ResponseEntity<ProblemDetail> throttled(OrderThrottledException e) {
+      long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+      return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+            .body(ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, e.getMessage()));
+   }
+
+   @ExceptionHandler(IdempotencyKeyReusedException.class)
+   public ResponseEntity<ProblemDetail> keyReused(IdempotencyKeyReusedException e) {
+      return ResponseEntity.unprocessableEntity()
+            .body(ProblemDetail.forStatusAndDetail(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage()));
+   }
+}
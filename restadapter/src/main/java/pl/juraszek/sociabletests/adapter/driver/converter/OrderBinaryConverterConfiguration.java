@@ -0,0 +1,20 @@
+package pl.juraszek.sociabletests.adapter.driver.converter;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Appends {@link OrderBinaryHttpMessageConverter} after the default converters, so clients that
+ * accept any media type keep getting JSON and only an explicit Accept gets the binary frame.
+ */
+@Configuration
+public class OrderBinaryConverterConfiguration implements WebMvcConfigurer {
+
+   @Override
+   public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+      converters.add(new OrderBinaryHttpMessageConverter());
+   }
+}
@@ -0,0 +1,57 @@
+package pl.juraszek.sociabletests.adapter.driver.converter;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import pl.juraszek.sociabletests.adapter.driver.dto.OrderDto;
+import pl.juraszek.sociabletests.adapter.driver.dto.ProductDto;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.codec.OrderBinaryCodec;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes {@link OrderDto} as {@value #MEDIA_TYPE_VALUE} using {@link OrderBinaryCodec}.
+ * Bodies larger than {@value #MAX_BODY_SIZE} bytes are rejected before they are decoded.
+ */
+public class OrderBinaryHttpMessageConverter extends AbstractHttpMessageConverter<OrderDto> {
+
+   public static final String MEDIA_TYPE_VALUE = "application/x-order-binary";
+   public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+   static final int MAX_BODY_SIZE = 1 << 20;
+
+   public OrderBinaryHttpMessageConverter() {
+      super(MEDIA_TYPE);
+   }
+
+   @Override
+   protected boolean supports(Class<?> clazz) {
+      return OrderDto.class.equals(clazz);
+   }
+
+   @Override
+   protected OrderDto readInternal(Class<? extends OrderDto> clazz, HttpInputMessage inputMessage) throws IOException {
+      if (inputMessage.getHeaders().getContentLength() > MAX_BODY_SIZE) {
+         throw new HttpMessageNotReadableException("Order frame exceeds " + MAX_BODY_SIZE + " bytes", inputMessage);
+      }
+      byte[] frame = inputMessage.getBody().readNBytes(MAX_BODY_SIZE + 1);
+      if (frame.length > MAX_BODY_SIZE) {
+         throw new HttpMessageNotReadableException("Order frame exceeds " + MAX_BODY_SIZE + " bytes", inputMessage);
+      }
+      try {
+         Order order = OrderBinaryCodec.decode(frame);
+         return new OrderDto(null, ProductDto.of(order.getProducts()), order.getClientId(), null);
+      } catch (IllegalArgumentException e) {
+         throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+      }
+   }
+
+   @Override
+   protected void writeInternal(OrderDto orderDto, HttpOutputMessage outputMessage) throws IOException {
+      Order order = Order.restore(orderDto.id(), ProductDto.convert(orderDto.products()), orderDto.clientId(),
+            Order.Status.valueOf(orderDto.status()));
+      outputMessage.getBody().write(OrderBinaryCodec.encode(order));
+   }
+}
@@ -1,14 +1,20 @@
 package pl.juraszek.sociabletests.adapter.driver.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import jakarta.validation.constraints.NotNull;
+import pl.juraszek.sociabletests.application.service.OrderRequest;
 import pl.juraszek.sociabletests.domain.order.Order;
 
 import java.util.List;
 
 public record OrderDto(@JsonProperty(access = JsonProperty.Access.READ_ONLY) String id,
-                       @NotNull List<ProductDto> products, @NotNull String clientId, @JsonProperty(access = JsonProperty.Access.READ_ONLY) String status) {
+                       @NotNull @JsonDeserialize(using = ProductDtoListDeserializer.class) List<ProductDto> products, @NotNull String clientId, @JsonProperty(access = JsonProperty.Access.READ_ONLY) String status) {
    public static OrderDto of(Order order) {
       return new OrderDto(order.getId(), ProductDto.of(order.getProducts()), order.getClientId(), order.getStatus().toString());
    }
+
+   public OrderRequest toRequest() {
+      return new OrderRequest(ProductDto.convert(products), clientId);
+   }
 }
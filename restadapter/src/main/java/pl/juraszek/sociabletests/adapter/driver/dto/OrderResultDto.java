@@ -0,0 +1,16 @@
+package pl.juraszek.sociabletests.adapter.driver.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.vavr.control.Either;
+import pl.juraszek.sociabletests.domain.order.Order;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record OrderResultDto(OrderDto order, String error) {
+   public static OrderResultDto of(Either<? extends RuntimeException, Order> result) {
+      return result.fold(exception -> error(exception.getMessage()), order -> new OrderResultDto(OrderDto.of(order), null));
+   }
+
+   public static OrderResultDto error(String message) {
+      return new OrderResultDto(null, message);
+   }
+}
@@ -3,11 +3,16 @@ package pl.juraszek.sociabletests.adapter.driver.dto;
 import org.springframework.lang.NonNull;
 import pl.juraszek.sociabletests.domain.order.product.Product;
 
+import java.util.Arrays;
 import java.util.List;
 
 public record ProductDto(@NonNull String productId, int amount) {
    public static List<ProductDto> of(@NonNull List<Product> products) {
-      return products.stream().map(ProductDto::of).toList();
+      ProductDto[] dtos = new ProductDto[products.size()];
+      for (int i = 0; i < dtos.length; i++) {
+         dtos[i] = of(products.get(i));
+      }
+      return Arrays.asList(dtos);
    }
 
    public static ProductDto of(@NonNull Product product) {
@@ -15,6 +20,11 @@ public record ProductDto(@NonNull String productId, int amount) {
    }
 
    public static List<Product> convert(List<ProductDto> products) {
-      return products.stream().map(productDto -> new Product(productDto.productId(), productDto.amount())).toList();
+      Product[] converted = new Product[products.size()];
+      for (int i = 0; i < converted.length; i++) {
+         ProductDto productDto = products.get(i);
+         converted[i] = new Product(productDto.productId(), productDto.amount());
+      }
+      return Arrays.asList(converted);
    }
 }
@@ -0,0 +1,73 @@
+package pl.juraszek.sociabletests.adapter.driver.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Binds a product array straight from the parser tokens. The generic record binding buffers
+ * creator properties of every element before it can call the constructor, baskets with thousands
+ * of lines pay for that on every request. Unknown fields are skipped, a structured product id is
+ * rejected.
+ */
+public class ProductDtoListDeserializer extends JsonDeserializer<List<ProductDto>> {
+
+   private static final int INITIAL_CAPACITY = 16;
+
+   @Override
+   public List<ProductDto> deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+      if (!parser.isExpectedStartArrayToken()) {
+         return castToList(context.handleUnexpectedToken(List.class, parser));
+      }
+      List<ProductDto> products = new ArrayList<>(INITIAL_CAPACITY);
+      JsonToken token;
+      while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+         if (token != JsonToken.START_OBJECT) {
+            return castToList(context.handleUnexpectedToken(ProductDto.class, parser));
+         }
+         products.add(readProduct(parser, context));
+      }
+      return Collections.unmodifiableList(products);
+   }
+
+   private ProductDto readProduct(JsonParser parser, DeserializationContext context) throws IOException {
+      String productId = null;
+      int amount = 0;
+      String field;
+      while ((field = parser.nextFieldName()) != null) {
+         JsonToken value = parser.nextToken();
+         switch (field) {
+            case "productId" -> productId = readProductId(parser, context, value);
+            case "amount" -> amount = value == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : parseAmount(parser, context);
+            default -> parser.skipChildren();
+         }
+      }
+      return new ProductDto(productId, amount);
+   }
+
+   private String readProductId(JsonParser parser, DeserializationContext context, JsonToken value) throws IOException {
+      if (value == JsonToken.VALUE_NULL) {
+         return null;
+      }
+      if (!value.isScalarValue()) {
+         return (String) context.handleUnexpectedToken(String.class, parser);
+      }
+      return parser.getValueAsString();
+   }
+
+   private int parseAmount(JsonParser parser, DeserializationContext context) throws IOException {
+      Integer amount = context.readValue(parser, Integer.class);
+      return amount == null ? 0 : amount;
+   }
+
+   @SuppressWarnings("unchecked")
+   private static List<ProductDto> castToList(Object value) {
+      return (List<ProductDto>) value;
+   }
+}
@@ -0,0 +1,10 @@
+package pl.juraszek.sociabletests.adapter.driver;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Boot configuration found by web slice tests of the rest adapter.
+ */
+@SpringBootApplication
+public class RestAdapterTestApplication {
+}
@@ -0,0 +1,89 @@
+package pl.juraszek.sociabletests.adapter.driver.controller;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import pl.juraszek.sociabletests.application.admission.AdmissionControl;
+import pl.juraszek.sociabletests.application.service.AsyncOrderService;
+import pl.juraszek.sociabletests.application.service.IdempotentOrderService;
+import pl.juraszek.sociabletests.application.service.OrderService;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = OrderController.class, properties = "order-tracing.enabled=true")
+class OrderBindingObservationAdviceTest {
+
+   private static final List<Observation.Context> stopped = new CopyOnWriteArrayList<>();
+   private static final List<Observation.Context> failed = new CopyOnWriteArrayList<>();
+
+   @Autowired
+   private MockMvc mockMvc;
+
+   @MockBean
+   private OrderService orderService;
+
+   @MockBean
+   private AsyncOrderService asyncOrderService;
+
+   @MockBean
+   private IdempotentOrderService idempotentOrderService;
+
+   @MockBean
+   private AdmissionControl admissionControl;
+
+   @Test
+   void shouldStopBindObservationWhenBodyFailsToBind() throws Exception {
+      // given
+      stopped.clear();
+      failed.clear();
+
+      // when
+      ResultActions placed = mockMvc.perform(post("/api/orders").contentType(MediaType.APPLICATION_JSON).content("{\"clientId\": "));
+
+      // then
+      placed.andExpect(status().isBadRequest());
+      assertThat(stopped).singleElement()
+            .extracting(Observation.Context::getContextualName).isEqualTo("order.bind");
+      assertThat(failed).containsExactlyElementsOf(stopped);
+   }
+
+   @TestConfiguration
+   static class RecordingObservations {
+
+      @Bean
+      ObservationRegistry observationRegistry() {
+         ObservationRegistry registry = ObservationRegistry.create();
+         registry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onError(Observation.Context context) {
+               failed.add(context);
+            }
+
+            @Override
+            public void onStop(Observation.Context context) {
+               stopped.add(context);
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+               return true;
+            }
+         });
+         return registry;
+      }
+   }
+}
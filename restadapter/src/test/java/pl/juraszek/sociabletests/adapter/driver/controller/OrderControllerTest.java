@@ -0,0 +1,167 @@
+package pl.juraszek.sociabletests.adapter.driver.controller;
+
+import io.vavr.control.Either;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import pl.juraszek.sociabletests.adapter.driver.converter.OrderBinaryHttpMessageConverter;
+import pl.juraszek.sociabletests.application.admission.AdmissionControl;
+import pl.juraszek.sociabletests.application.admission.OrderThrottledException;
+import pl.juraszek.sociabletests.application.service.AsyncOrderService;
+import pl.juraszek.sociabletests.application.service.IdempotencyKeyReusedException;
+import pl.juraszek.sociabletests.application.service.IdempotentOrderService;
+import pl.juraszek.sociabletests.application.service.OrderService;
+import pl.juraszek.sociabletests.domain.order.Order;
+import pl.juraszek.sociabletests.domain.order.codec.OrderBinaryCodec;
+import pl.juraszek.sociabletests.domain.order.product.Product;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(OrderController.class)
+class OrderControllerTest {
+
+   private static final String ORDER = """
+         {"clientId": "jane_doe", "products": [{"productId": "basic", "amount": 1}]}
+         """;
+
+   private final Order order = Order.restore("order_1", List.of(new Product("basic", 1)), "jane_doe", Order.Status.PLACED);
+
+   @Autowired
+   private MockMvc mockMvc;
+
+   @MockBean
+   private OrderService orderService;
+
+   @MockBean
+   private AsyncOrderService asyncOrderService;
+
+   @MockBean
+   private IdempotentOrderService idempotentOrderService;
+
+   @MockBean
+   private AdmissionControl admissionControl;
+
+   @Test
+   void shouldRespondWithJsonByDefault() throws Exception {
+      // given
+      given(orderService.placeOrder(anyList(), eq("jane_doe"))).willReturn(order);
+      given(orderService.findOrder("order_1")).willReturn(Optional.of(order));
+
+      // when
+      ResultActions placed = mockMvc.perform(post("/api/orders").contentType(MediaType.APPLICATION_JSON).content(ORDER));
+      ResultActions found = mockMvc.perform(get("/api/orders/order_1").accept(MediaType.ALL));
+
+      // then
+      placed.andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.id").value("order_1"));
+      found.andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+   }
+
+   @Test
+   void shouldRejectStructuredProductId() throws Exception {
+      // given
+      String objectId = """
+            {"clientId": "jane_doe", "products": [{"productId": {"id": "basic"}, "amount": 1}]}
+            """;
+      String arrayId = """
+            {"clientId": "jane_doe", "products": [{"productId": ["basic"], "amount": 1}]}
+            """;
+
+      // when
+      ResultActions objectPlaced = mockMvc.perform(post("/api/orders").contentType(MediaType.APPLICATION_JSON).content(objectId));
+      ResultActions arrayPlaced = mockMvc.perform(post("/api/orders").contentType(MediaType.APPLICATION_JSON).content(arrayId));
+
+      // then
+      objectPlaced.andExpect(status().isBadRequest());
+      arrayPlaced.andExpect(status().isBadRequest());
+      verifyNoInteractions(orderService);
+   }
+
+   @Test
+   void shouldRejectThrottledOrderWithRetryAfter() throws Exception {
+      // given
+      given(admissionControl.admit("jane_doe"))
+            .willThrow(new OrderThrottledException("Rate limit exceeded for client jane_doe", Duration.ofMillis(1500)));
+
+      // when
+      ResultActions placed = mockMvc.perform(post("/api/orders").contentType(MediaType.APPLICATION_JSON).content(ORDER));
+
+      // then
+      placed.andExpect(status().isTooManyRequests())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+      verifyNoInteractions(orderService);
+   }
+
+   @Test
+   void shouldChargeEveryOrderOfBatchToItsClient() throws Exception {
+      // given
+      willThrow(new OrderThrottledException("Rate limit exceeded for client john_doe", Duration.ofSeconds(1)))
+            .given(admissionControl).charge("john_doe");
+      given(orderService.placeOrders(anyList())).willReturn(List.of(Either.right(order)));
+
+      // when
+      ResultActions placed = mockMvc.perform(post("/api/orders/batch").contentType(MediaType.APPLICATION_JSON).content("""
+            [{"clientId": "jane_doe", "products": [{"productId": "basic", "amount": 1}]},
+             {"clientId": "john_doe", "products": [{"productId": "basic", "amount": 1}]}]
+            """));
+
+      // then
+      placed.andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].order.id").value("order_1"))
+            .andExpect(jsonPath("$[1].error").value("Rate limit exceeded for client john_doe"));
+      verify(orderService).placeOrders(argThat(requests -> requests.size() == 1));
+   }
+
+   @Test
+   void shouldRejectIdempotencyKeyReusedForDifferentOrder() throws Exception {
+      // given
+      given(idempotentOrderService.placeOrder(eq("retry-1"), anyList(), eq("jane_doe")))
+            .willThrow(new IdempotencyKeyReusedException("Idempotency key retry-1 was already used for a different order"));
+
+      // when
+      ResultActions placed = mockMvc.perform(post("/api/orders").contentType(MediaType.APPLICATION_JSON)
+            .header("Idempotency-Key", "retry-1").content(ORDER));
+
+      // then
+      placed.andExpect(status().isUnprocessableEntity());
+   }
+
+   @Test
+   void shouldRespondWithBinaryFrameWhenAccepted() throws Exception {
+      // given
+      given(orderService.findOrder("order_1")).willReturn(Optional.of(order));
+
+      // when
+      byte[] frame = mockMvc.perform(get("/api/orders/order_1").accept(OrderBinaryHttpMessageConverter.MEDIA_TYPE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(OrderBinaryHttpMessageConverter.MEDIA_TYPE))
+            .andReturn().getResponse().getContentAsByteArray();
+
+      // then
+      assertThat(OrderBinaryCodec.decode(frame)).isEqualTo(order);
+   }
+}
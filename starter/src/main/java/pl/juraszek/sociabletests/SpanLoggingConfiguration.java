@@ -0,0 +1,20 @@
+package pl.juraszek.sociabletests;
+
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exports finished spans to the log, for local use without a collector.
+ */
+@ConditionalOnProperty(prefix = "order-tracing", name = "log-spans", havingValue = "true")
+@Configuration
+public class SpanLoggingConfiguration {
+
+   @Bean
+   public SpanExporter loggingSpanExporter() {
+      return LoggingSpanExporter.create();
+   }
+}
@@ -0,0 +1,60 @@
+package pl.juraszek.sociabletests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import pl.juraszek.sociabletests.application.load.LoadGenerator;
+import pl.juraszek.sociabletests.application.load.LoadProfile;
+import pl.juraszek.sociabletests.application.load.LoadReport;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * HTTP level load run against the whole application on stubs, enabled with {@code -Dload.enabled=true}.
+ */
+@SpringBootTest(classes = SociableDomainUnitTestingApplication.class,
+      webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+      properties = {
+            "admission.enabled=false",
+            "load.latency.enabled=true"
+      })
+@EnabledIfSystemProperty(named = "load.enabled", matches = "true")
+class OrderControllerLoadTest {
+
+   private static final String ORDER = """
+         {"clientId": "jane_doe", "products": [{"productId": "basic", "amount": 1}, {"productId": "premium_1", "amount": 2}]}
+         """;
+
+   @LocalServerPort
+   private int port;
+
+   @Test
+   void shouldPlaceOrdersOverHttpUnderLoad() throws InterruptedException {
+      //   given
+      HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+      HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/orders"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(ORDER))
+            .build();
+      LoadProfile profile = LoadProfile.fromSystemProperties(32, Duration.ofSeconds(5), Duration.ofSeconds(20));
+
+      //      when
+      LoadReport report = LoadGenerator.run("POST /api/orders", profile, () -> {
+         HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+         if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+         }
+      });
+
+      //      then
+      report.print(System.out);
+      assertThat(report.errors()).isZero();
+   }
+}